@@ -0,0 +1,76 @@
+package com.jtconnors.benchmarks;
+
+import com.jtconnors.sudokufx2.Board;
+import com.jtconnors.sudokufx2.Space;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.playsudoku.DancingLinksSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Conflict detection of the JavaFX board as run after every key press:
+ * the givens are uneditable, the open spaces are filled with the solution
+ * and one entry per row is replaced by a duplicate.  Space only uses
+ * javafx.base properties, so no FX toolkit is started.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"easy", "normal", "hard"})
+    public String fixture;
+
+    private Board board;
+
+    @Setup
+    public void setup() {
+        int[] puzzle = Fixtures.values(Fixtures.get(fixture));
+        int[] solution = new int[81];
+        DancingLinksSolver dlx = new DancingLinksSolver();
+        dlx.load(puzzle);
+        dlx.solve(solution);
+
+        board = new Board();
+        for (int i = 0; i < 81; i++) {
+            if (puzzle[i] != 0) {
+                board.setNumberUnEditable(i / 9, i % 9, puzzle[i]);
+            } else {
+                board.setNumberEditable(i / 9, i % 9, solution[i]);
+            }
+        }
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                if (puzzle[row * 9 + column] == 0) {
+                    board.setNumberEditable(row, column, solution[row * 9 + (column + 1) % 9]);
+                    break;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Space> getConflictsComplete() {
+        board.clearConflicts();
+        return board.getConflicts(true);
+    }
+
+    @Benchmark
+    public ArrayList<Space> getConflictsOptimized() {
+        board.clearConflicts();
+        return board.getConflictsOptimized();
+    }
+}
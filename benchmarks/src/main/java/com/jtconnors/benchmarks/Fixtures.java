@@ -0,0 +1,100 @@
+package com.jtconnors.benchmarks;
+
+import net.sourceforge.playsudoku.GV;
+import net.sourceforge.playsudoku.SudokuGrid;
+
+/*
+ * Fixed puzzle fixtures shared by all benchmarks, in the 81 character line
+ * format where character i is the cell with index x*9+y.  The easy, normal
+ * and hard fixtures were produced once by SudokuGenerator.generatePuzzle()
+ * with the GV.DIFF_* clue counts and are kept verbatim so every run measures
+ * the same grids.
+ */
+final class Fixtures {
+
+    static final String[] NAMES = {
+        "easy", "normal", "hard", "seventeen", "escargot", "inkala",
+        "antiBacktracking"
+    };
+
+    // GV.DIFF_EASY clues
+    static final String EASY =
+        ".4...6.1982..9......371.5......2.48.1.6.439...84...7.1..2..43..4.....16..6.37..48";
+    // GV.DIFF_NORMAL clues
+    static final String NORMAL =
+        ".....75...98..2.712....6...68.1..29.7..9.8.....3...8......7..6..76.89.5...9..17.2";
+    // GV.DIFF_HARD clues
+    static final String HARD =
+        "......21..2..63...5.4....9......9.218..2.....2..3..8....279.1...8....9...916..5..";
+    // minimal 17 clue puzzle
+    static final String SEVENTEEN =
+        "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+    // "AI Escargot"
+    static final String ESCARGOT =
+        "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..";
+    // Arto Inkala's 2012 puzzle
+    static final String INKALA =
+        "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+    // first row of the solution is 987654321, worst case for row-major search
+    static final String ANTI_BACKTRACKING =
+        "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9";
+
+    // seed of the generator benchmarks, see SudokuGenerator(long)
+    static final long SEED = 20261018L;
+
+    private Fixtures() {
+    }
+
+    static String get(String name) {
+        switch (name) {
+            case "easy": return EASY;
+            case "normal": return NORMAL;
+            case "hard": return HARD;
+            case "seventeen": return SEVENTEEN;
+            case "escargot": return ESCARGOT;
+            case "inkala": return INKALA;
+            case "antiBacktracking": return ANTI_BACKTRACKING;
+            default:
+                throw new IllegalArgumentException("Unknown fixture: " + name);
+        }
+    }
+
+    /*
+     * Clue count used by SudokuGenerator for a fixture generated at one of
+     * the difficulty constants.
+     */
+    static int difficulty(String name) {
+        switch (name) {
+            case "easy": return GV.DIFF_EASY;
+            case "normal": return GV.DIFF_NORMAL;
+            case "hard": return GV.DIFF_HARD;
+            default:
+                throw new IllegalArgumentException("Not a generated fixture: " + name);
+        }
+    }
+
+    static int[] values(String puzzle) {
+        int[] values = new int[81];
+        for (int i = 0; i < 81; i++) {
+            char c = puzzle.charAt(i);
+            values[i] = (c == '.') ? 0 : c - '0';
+        }
+        return values;
+    }
+
+    /*
+     * Build a grid the way a generated puzzle looks: givens are default
+     * cells, all other cells are open.
+     */
+    static SudokuGrid grid(String puzzle) {
+        SudokuGrid grid = new SudokuGrid();
+        int[] values = values(puzzle);
+        for (int i = 0; i < 81; i++) {
+            if (values[i] != 0) {
+                grid.setGridVal(i / 9, i % 9, values[i]);
+                grid.setDefault(i / 9, i % 9, true);
+            }
+        }
+        return grid;
+    }
+}
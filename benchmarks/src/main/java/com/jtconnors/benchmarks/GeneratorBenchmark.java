@@ -0,0 +1,52 @@
+package com.jtconnors.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.playsudoku.GV;
+import net.sourceforge.playsudoku.SudokuGenerator;
+import net.sourceforge.playsudoku.SudokuGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Puzzle generation at each GV.DIFF_* clue count, the same call the "New"
+ * button makes.  The generators are seeded from a fixed stream, so every
+ * iteration generates the same sequence of puzzles and runs compare the
+ * same work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"easy", "normal", "hard"})
+    public String fixture;
+
+    private SplittableRandom seeds;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        seeds = new SplittableRandom(Fixtures.SEED);
+    }
+
+    @Benchmark
+    public SudokuGrid generatePuzzle() {
+        SudokuGenerator generator = new SudokuGenerator(seeds.nextLong());
+        generator.generatePuzzle(Fixtures.difficulty(fixture),
+                GV.NumDistributuon.evenlyFilled3x3Square3);
+        return generator.getGrid();
+    }
+}
@@ -0,0 +1,80 @@
+package com.jtconnors.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.playsudoku.SudokuGenerator;
+import net.sourceforge.playsudoku.SudokuGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Grid level operations of the solver hot path: the validity checks built on
+ * checkGrid and the candidate lookups for every cell of a half filled grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+
+    @Param({"easy", "normal", "hard"})
+    public String fixture;
+
+    private SudokuGrid grid;
+
+    @Setup
+    public void setup() {
+        grid = Fixtures.grid(Fixtures.get(fixture));
+        // solved grid values with the puzzle values of a player half way done
+        new SudokuGenerator(grid).solveGrid();
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y += 2) {
+                grid.setPuzzleVal(x, y, grid.getGridVal(x, y));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isGridValid() {
+        return grid.isGridValid();
+    }
+
+    @Benchmark
+    public boolean isGridSolved() {
+        return grid.isGridSolved();
+    }
+
+    @Benchmark
+    public boolean isPuzzleValid() {
+        return grid.isPuzzleValid();
+    }
+
+    @Benchmark
+    public void getAvailabeValuesField(Blackhole bh) {
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                bh.consume(grid.getAvailabeValuesField(x, y, true));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getCandidateMask(Blackhole bh) {
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                bh.consume(grid.getCandidateMask(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.jtconnors.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.playsudoku.BitboardSolver;
+import net.sourceforge.playsudoku.GV;
+import net.sourceforge.playsudoku.SudokuGenerator;
+import net.sourceforge.playsudoku.SudokuGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Solving the fixtures with every engine.  solveGrid() clears the open cells
+ * itself, so each invocation starts from the same puzzle without a per
+ * invocation setup.  The row-major backtracking on the antiBacktracking
+ * fixture takes seconds per call, which is exactly what this case is for.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"easy", "normal", "hard", "seventeen", "escargot", "inkala",
+            "antiBacktracking"})
+    public String fixture;
+
+    private SudokuGenerator rowMajor;
+    private SudokuGenerator mostConstrained;
+    private SudokuGenerator dancingLinks;
+    private BitboardSolver bitboard;
+
+    @Setup
+    public void setup() {
+        String puzzle = Fixtures.get(fixture);
+        rowMajor = new SudokuGenerator(Fixtures.grid(puzzle));
+        mostConstrained = new SudokuGenerator(Fixtures.grid(puzzle));
+        mostConstrained.setSearchOrder(GV.SearchOrder.mostConstrained,
+                GV.TieBreak.maxDegree);
+        dancingLinks = new SudokuGenerator(Fixtures.grid(puzzle));
+        dancingLinks.setSolver(GV.Solver.dancingLinks);
+        bitboard = new BitboardSolver();
+        bitboard.load(Fixtures.values(puzzle));
+    }
+
+    @Benchmark
+    public SudokuGrid solveGridRowMajor() {
+        rowMajor.solveGrid();
+        return rowMajor.getGrid();
+    }
+
+    @Benchmark
+    public SudokuGrid solveGridMostConstrained() {
+        mostConstrained.solveGrid();
+        return mostConstrained.getGrid();
+    }
+
+    @Benchmark
+    public SudokuGrid solveGridDancingLinks() {
+        dancingLinks.solveGrid();
+        return dancingLinks.getGrid();
+    }
+
+    @Benchmark
+    public int countSolutionsBitboard() {
+        return bitboard.countSolutions(2);
+    }
+}
@@ -0,0 +1,300 @@
+/* BatchSolver created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Validates and solves puzzle corpora in the common one-puzzle-per-line
+ * format: 81 characters, digits 1-9 for givens and '0' or '.' for open cells.
+ * Character i of a line is the cell with index i = x*9+y.
+ * <p>
+ * Lines are read in chunks, each chunk is split across a fixed pool of
+ * workers that each reuse one {@link BitboardSolver}, and the results are
+ * written in input order as
+ * <pre>solution TAB status TAB nodes TAB microseconds</pre>
+ * where status is one of unique, multiple, none or invalid. For puzzles
+ * without a solution the input line is echoed instead of a solution.
+ */
+public class BatchSolver {
+
+    public static final String UNIQUE = "unique";
+    public static final String MULTIPLE = "multiple";
+    public static final String NONE = "none";
+    public static final String INVALID = "invalid";
+
+    private static final int CHUNK_SIZE = 8192;
+
+    // outcome of a line, written as its name
+    private enum Status {unique, multiple, none, invalid};
+
+    private final int workers;
+
+    private long unique;
+    private long multiple;
+    private long none;
+    private long invalid;
+
+    public BatchSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchSolver(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed.");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Solves every puzzle read from <code>in</code> and writes one result
+     * line per puzzle to <code>out</code>.
+     *
+     * @return the number of puzzles processed
+     */
+    public long solve(Reader in, Writer out) throws IOException {
+        unique = multiple = none = invalid = 0;
+        BufferedReader reader = in instanceof BufferedReader
+                ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Chunk[] buffers = { new Chunk(workers), new Chunk(workers) };
+        long total = 0;
+        try {
+            int current = 0;
+            List<Future<Void>> pending = buffers[current].read(reader) > 0
+                    ? buffers[current].submit(pool) : null;
+            while (pending != null) {
+                // read the next chunk while the workers solve this one
+                Chunk next = buffers[current ^ 1];
+                boolean more = next.read(reader) > 0;
+                await(pending);
+                total += buffers[current].write(out);
+                current ^= 1;
+                pending = more ? next.submit(pool) : null;
+            }
+            out.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+        return total;
+    }
+
+    private static void await(List<Future<Void>> futures) throws IOException {
+        try {
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch solve interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch solve failed.", e.getCause());
+        }
+    }
+
+    public long getUniqueCount() {
+        return unique;
+    }
+
+    public long getMultipleCount() {
+        return multiple;
+    }
+
+    public long getNoSolutionCount() {
+        return none;
+    }
+
+    public long getInvalidCount() {
+        return invalid;
+    }
+
+    /**
+     * Parses one puzzle line into cell values.
+     *
+     * @return false if the line is not an 81 character puzzle
+     */
+    public static boolean parse(CharSequence line, int[] values) {
+        if (line.length() < 81) {
+            return false;
+        }
+        for (int i = 0; i < 81; i++) {
+            char c = line.charAt(i);
+            if (c >= '1' && c <= '9') {
+                values[i] = c - '0';
+            } else if (c == '0' || c == '.') {
+                values[i] = 0;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a block of input lines together with their results
+    private class Chunk {
+        final String[] lines = new String[CHUNK_SIZE];
+        final char[][] solutions = new char[CHUNK_SIZE][81];
+        final Status[] status = new Status[CHUNK_SIZE];
+        final long[] nodes = new long[CHUNK_SIZE];
+        final long[] micros = new long[CHUNK_SIZE];
+        final List<Callable<Void>> slices;
+        int size;
+
+        Chunk(int workers) {
+            slices = new ArrayList<Callable<Void>>(workers);
+            for (int w = 0; w < workers; w++) {
+                final int worker = w;
+                slices.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        int from = (int) ((long) size * worker / slices.size());
+                        int to = (int) ((long) size * (worker + 1) / slices.size());
+                        solveRange(from, to);
+                        return null;
+                    }
+                });
+            }
+        }
+
+        int read(BufferedReader reader) throws IOException {
+            size = 0;
+            String line;
+            while (size < CHUNK_SIZE && (line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines[size++] = line;
+                }
+            }
+            return size;
+        }
+
+        List<Future<Void>> submit(ExecutorService pool) {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(slices.size());
+            for (Callable<Void> slice : slices) {
+                futures.add(pool.submit(slice));
+            }
+            return futures;
+        }
+
+        void solveRange(int from, int to) {
+            BitboardSolver solver = SOLVERS.get();
+            int[] values = VALUES.get();
+            for (int i = from; i < to; i++) {
+                long start = System.nanoTime();
+                if (!parse(lines[i], values) || !solver.load(values)) {
+                    status[i] = Status.invalid;
+                    nodes[i] = 0;
+                } else {
+                    int n = solver.countSolutions(2);
+                    status[i] = n == 0 ? Status.none : n == 1 ? Status.unique : Status.multiple;
+                    nodes[i] = solver.getNodeCount();
+                    if (n > 0) {
+                        solver.getSolution(values);
+                        for (int c = 0; c < 81; c++) {
+                            solutions[i][c] = (char) ('0' + values[c]);
+                        }
+                    }
+                }
+                micros[i] = (System.nanoTime() - start) / 1000;
+            }
+        }
+
+        int write(Writer out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                Status s = status[i];
+                if (s == Status.unique || s == Status.multiple) {
+                    out.write(solutions[i]);
+                } else {
+                    out.write(lines[i]);
+                }
+                out.write('\t');
+                out.write(s.name());
+                out.write('\t');
+                out.write(Long.toString(nodes[i]));
+                out.write('\t');
+                out.write(Long.toString(micros[i]));
+                out.write('\n');
+                switch (s) {
+                case unique: unique++; break;
+                case multiple: multiple++; break;
+                case none: none++; break;
+                default: invalid++; break;
+                }
+                lines[i] = null;
+            }
+            return size;
+        }
+    }
+
+    private static final ThreadLocal<BitboardSolver> SOLVERS = new ThreadLocal<BitboardSolver>() {
+        @Override
+        protected BitboardSolver initialValue() {
+            return new BitboardSolver();
+        }
+    };
+
+    private static final ThreadLocal<int[]> VALUES = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[81];
+        }
+    };
+
+    private static void usage() {
+        System.err.println("Usage: BatchSolver [-t threads] [-o output] input");
+        System.err.println("  input and output may be '-' for stdin/stdout");
+        System.exit(1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = "-";
+        String input = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-t") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-o") && i + 1 < args.length) {
+                output = args[++i];
+            } else if (input == null) {
+                input = args[i];
+            } else {
+                usage();
+            }
+        }
+        if (input == null) {
+            usage();
+        }
+
+        Reader in = new InputStreamReader(input.equals("-")
+                ? System.in : new FileInputStream(input), StandardCharsets.US_ASCII);
+        Writer out = new BufferedWriter(new OutputStreamWriter(output.equals("-")
+                ? System.out : new FileOutputStream(output), StandardCharsets.US_ASCII), 1 << 16);
+        BatchSolver batch = new BatchSolver(threads);
+        long start = System.nanoTime();
+        long total;
+        try {
+            total = batch.solve(in, out);
+        } finally {
+            in.close();
+            out.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d puzzles in %.3f s (%.0f/s): %d unique, %d multiple, %d none, %d invalid%n",
+                total, seconds, total / seconds, batch.unique, batch.multiple,
+                batch.none, batch.invalid);
+    }
+}
@@ -0,0 +1,434 @@
+/* BitboardSolver created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bitmask backtracking solver used to count solutions and check puzzles for
+ * uniqueness.
+ * <p>
+ * Before and during the search naked and hidden singles are propagated,
+ * so most published puzzles solve without a single guess.
+ * <p>
+ * The givens stay loaded between calls and can be changed one cell at a
+ * time with {@link #setGiven(int, int)} and {@link #clearGiven(int)}; every
+ * search restores the state it started from, so repeated checks of the same
+ * base grid need no reloading. The search branches on the cell with the
+ * fewest candidates and allocates nothing. Cells are indexed x*9+y like
+ * {@link SudokuGrid#returnGridSequence()}.
+ */
+public class BitboardSolver {
+
+    private static final int[] CELL_X = CandidateEngine.CELL_X;
+    private static final int[] CELL_Y = CandidateEngine.CELL_Y;
+    private static final int[] CELL_SQUARE = CandidateEngine.CELL_SQUARE;
+    private static final int[][] UNITS = CandidateEngine.UNITS;
+
+    private final int[] values;
+    private final int[] vertical;
+    private final int[] horizontal;
+    private final int[] square;
+    private int givenCount;
+
+    /*
+     * Search trail: order[0..top) are the open cells assigned so far, by a
+     * decision or by propagation, in assignment order; order[top..open) are
+     * still open. Each decision level remembers its cell, the values not
+     * yet tried there and the trail height before the decision.
+     */
+    private final int[] order;
+    private final int[] position;
+    private int open;
+    private int top;
+    private final int[] frameCell;
+    private final int[] frameMask;
+    private final int[] frameTop;
+    private final int[] candidates;
+    private final int[] solution;
+    private boolean propagation;
+    private long nodes;
+    private AtomicBoolean cancelled;
+    private AtomicBoolean otherCancelled;
+
+    public BitboardSolver() {
+        values = new int[81];
+        vertical = new int[9];
+        horizontal = new int[9];
+        square = new int[9];
+        order = new int[81];
+        position = new int[81];
+        frameCell = new int[81];
+        frameMask = new int[81];
+        frameTop = new int[81];
+        candidates = new int[81];
+        solution = new int[81];
+        propagation = true;
+    }
+
+    /**
+     * Creates an independent copy of the givens of another solver.
+     */
+    public BitboardSolver(BitboardSolver other) {
+        this();
+        System.arraycopy(other.values, 0, values, 0, 81);
+        System.arraycopy(other.vertical, 0, vertical, 0, 9);
+        System.arraycopy(other.horizontal, 0, horizontal, 0, 9);
+        System.arraycopy(other.square, 0, square, 0, 9);
+        givenCount = other.givenCount;
+        propagation = other.propagation;
+    }
+
+    /**
+     * Switches the naked and hidden single propagation, run before the
+     * search and after every decision, on or off. It is on by default.
+     */
+    public void setPropagation(boolean propagation) {
+        this.propagation = propagation;
+    }
+
+    public boolean isPropagation() {
+        return propagation;
+    }
+
+    /**
+     * A search polls the flag every few thousand nodes and returns the
+     * solutions found so far once it is set.
+     */
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        setCancelFlags(cancelled, null);
+    }
+
+    /**
+     * As {@link #setCancelFlag(AtomicBoolean)}, returning once either flag
+     * is set. Either may be null.
+     */
+    public void setCancelFlags(AtomicBoolean cancelled, AtomicBoolean other) {
+        this.cancelled = cancelled != null ? cancelled : other;
+        this.otherCancelled = cancelled != null ? other : null;
+    }
+
+    public void clear() {
+        for (int i = 0; i < 81; i++) {
+            values[i] = 0;
+        }
+        for (int i = 0; i < 9; i++) {
+            vertical[i] = horizontal[i] = square[i] = 0;
+        }
+        givenCount = 0;
+    }
+
+    /**
+     * @param givens 81 values indexed x*9+y, 0 for an open cell
+     * @return false if the givens contradict each other
+     */
+    public boolean load(int[] givens) {
+        clear();
+        for (int cell = 0; cell < 81; cell++) {
+            if (givens[cell] != 0 && !setGiven(cell, givens[cell])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the default cells of the grid as givens.
+     */
+    public boolean load(SudokuGrid grid) {
+        clear();
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (grid.isDefault(x, y) && grid.getGridVal(x, y) != 0
+                        && !setGiven(CandidateEngine.cellIndex(x, y), grid.getGridVal(x, y))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the cell is already given or the value conflicts with
+     *         another given; the state is left unchanged in that case
+     */
+    public boolean setGiven(int cell, int val) {
+        if (val < 1 || val > 9) {
+            throw new IllegalArgumentException("Cell value is illegal.");
+        }
+        if (values[cell] != 0 || (getCandidates(cell) & (1 << (val - 1))) == 0) {
+            return false;
+        }
+        place(cell, 1 << (val - 1));
+        givenCount++;
+        return true;
+    }
+
+    public void clearGiven(int cell) {
+        if (values[cell] != 0) {
+            unplace(cell);
+            givenCount--;
+        }
+    }
+
+    public int getGiven(int cell) {
+        return values[cell];
+    }
+
+    public int getGivenCount() {
+        return givenCount;
+    }
+
+    /**
+     * @return the open cell with the fewest candidates, or -1 if every cell
+     *         is given
+     */
+    public int getMostConstrainedCell() {
+        int best = -1;
+        int bestCount = 10;
+        for (int cell = 0; cell < 81 && bestCount > 0; cell++) {
+            if (values[cell] == 0) {
+                int count = Integer.bitCount(getCandidates(cell));
+                if (count < bestCount) {
+                    best = cell;
+                    bestCount = count;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds the naked and hidden singles implied by the givens as givens,
+     * until neither is found.
+     *
+     * @return false if the givens lead to a contradiction; they are left
+     *         unchanged in that case
+     */
+    public boolean propagateSingles() {
+        open = 0;
+        for (int cell = 0; cell < 81; cell++) {
+            if (values[cell] == 0) {
+                position[cell] = open;
+                order[open++] = cell;
+            }
+        }
+        top = 0;
+        if (!propagate()) {
+            undo(0);
+            return false;
+        }
+        givenCount += top;
+        return true;
+    }
+
+    public int getCandidates(int cell) {
+        return CandidateEngine.ALL_CANDIDATES & ~(vertical[CELL_X[cell]]
+                | horizontal[CELL_Y[cell]] | square[CELL_SQUARE[cell]]);
+    }
+
+    private void place(int cell, int bit) {
+        values[cell] = Integer.numberOfTrailingZeros(bit) + 1;
+        vertical[CELL_X[cell]] |= bit;
+        horizontal[CELL_Y[cell]] |= bit;
+        square[CELL_SQUARE[cell]] |= bit;
+    }
+
+    private void unplace(int cell) {
+        int bit = ~(1 << (values[cell] - 1));
+        values[cell] = 0;
+        vertical[CELL_X[cell]] &= bit;
+        horizontal[CELL_Y[cell]] &= bit;
+        square[CELL_SQUARE[cell]] &= bit;
+    }
+
+    /**
+     * Counts the solutions of the loaded givens, stopping as soon as
+     * <code>limit</code> solutions have been found.
+     */
+    public int countSolutions(int limit) {
+        nodes = 0;
+        if (limit <= 0) {
+            return 0;
+        }
+        open = 0;
+        for (int cell = 0; cell < 81; cell++) {
+            if (values[cell] == 0) {
+                position[cell] = open;
+                order[open++] = cell;
+            }
+        }
+        top = 0;
+
+        int found = 0;
+        int level = -1;
+        boolean consistent = !propagation || propagate();
+        while (true) {
+            if (consistent) {
+                if (top == open) {
+                    if (found++ == 0) {
+                        System.arraycopy(values, 0, solution, 0, 81);
+                    }
+                    if (found >= limit) {
+                        break;
+                    }
+                } else {
+                    // branch on the open cell with the fewest candidates
+                    int cell = selectCell();
+                    level++;
+                    frameTop[level] = top;
+                    frameCell[level] = cell;
+                    frameMask[level] = getCandidates(cell);
+                }
+            }
+            // try the next value of the innermost decision with values left
+            while (level >= 0 && frameMask[level] == 0) {
+                level--;
+            }
+            if (level < 0) {
+                break;
+            }
+            undo(frameTop[level]);
+            int mask = frameMask[level];
+            int bit = mask & -mask;
+            frameMask[level] = mask & ~bit;
+            assign(frameCell[level], bit);
+            nodes++;
+            if (cancelled != null && (nodes & 0xfff) == 0
+                    && (cancelled.get() || otherCancelled != null && otherCancelled.get())) {
+                break;
+            }
+            consistent = !propagation || propagate();
+        }
+        undo(0);
+        return found;
+    }
+
+    private void assign(int cell, int bit) {
+        int p = position[cell];
+        int other = order[top];
+        order[p] = other;
+        position[other] = p;
+        order[top] = cell;
+        position[cell] = top;
+        top++;
+        place(cell, bit);
+    }
+
+    private void undo(int mark) {
+        while (top > mark) {
+            unplace(order[--top]);
+        }
+    }
+
+    private int selectCell() {
+        int best = order[top];
+        int bestCount = 10;
+        for (int i = top; i < open && bestCount > 1; i++) {
+            int cell = order[i];
+            int count = Integer.bitCount(getCandidates(cell));
+            if (count < bestCount) {
+                best = cell;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Assigns naked singles (cells with one candidate left) and hidden
+     * singles (values with one place left in a line or square) until
+     * neither is found. Returns false on a contradiction: a cell without
+     * candidates or a value without a place in some line or square.
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = top; i < open; i++) {
+                int cell = order[i];
+                int mask = getCandidates(cell);
+                if (mask == 0) {
+                    return false;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    assign(cell, mask);
+                    changed = true;
+                }
+                candidates[cell] = mask;
+            }
+            if (changed) {
+                continue;
+            }
+            // candidates[] may be stale after the singles above, but only
+            // ever holds supersets; values placed meanwhile are masked out
+            // and every hidden single is rechecked before it is assigned
+            for (int u = 0; u < 27; u++) {
+                int[] unit = UNITS[u];
+                int once = 0;
+                int twice = 0;
+                int used = 0;
+                for (int k = 0; k < 9; k++) {
+                    int cell = unit[k];
+                    if (values[cell] != 0) {
+                        used |= 1 << (values[cell] - 1);
+                    } else {
+                        int mask = candidates[cell];
+                        twice |= once & mask;
+                        once |= mask;
+                    }
+                }
+                if ((once | used) != CandidateEngine.ALL_CANDIDATES) {
+                    return false;
+                }
+                int hidden = once & ~twice & ~used;
+                while (hidden != 0) {
+                    int bit = hidden & -hidden;
+                    hidden &= ~bit;
+                    int k = 0;
+                    while (k < 9 && (values[unit[k]] != 0
+                            || (getCandidates(unit[k]) & bit) == 0)) {
+                        k++;
+                    }
+                    if (k == 9) {
+                        return false;
+                    }
+                    assign(unit[k], bit);
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * @param result receives the solution, indexed x*9+y
+     * @return false if the loaded givens have no solution
+     */
+    public boolean solve(int[] result) {
+        if (countSolutions(1) == 0) {
+            return false;
+        }
+        System.arraycopy(solution, 0, result, 0, 81);
+        return true;
+    }
+
+    /**
+     * Copies the first solution found by the last search; only meaningful if
+     * that search found at least one.
+     */
+    public void getSolution(int[] result) {
+        System.arraycopy(solution, 0, result, 0, 81);
+    }
+
+    /**
+     * @return the number of guesses made by the last search; values
+     *         assigned by propagation are not counted
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+}
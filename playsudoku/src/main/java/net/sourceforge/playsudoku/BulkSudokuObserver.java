@@ -0,0 +1,19 @@
+/* BulkSudokuObserver created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.BitSet;
+
+/**
+ * Observer that receives the cells changed by a batch of updates (see
+ * {@link SudokuGrid#beginUpdate()}) as one change set instead of one
+ * {@link #updateCellChange(int)} call per cell. Changes made outside of a
+ * batch are still reported through updateCellChange.
+ */
+public interface BulkSudokuObserver extends SudokuObserver {
+
+    /**
+     * @param cells bit x*9+y is set for every changed cell; the set is a copy
+     *        owned by the observer
+     */
+    public void updateCellsChange(BitSet cells);
+}
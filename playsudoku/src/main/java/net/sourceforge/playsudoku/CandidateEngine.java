@@ -0,0 +1,170 @@
+/* CandidateEngine created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+/**
+ * Keeps the vertical, horizontal and square masks of a 9x9 grid up to date
+ * while cells are set and reset, so candidate lookups and validity checks
+ * no longer need a rescan of all 81 cells.
+ * <p>
+ * Cells are addressed the same way as {@link SudokuGrid}: x selects the
+ * vertical line, y the horizontal line and the square index is
+ * 3*(x/3)+(y/3). Flat cell indices are x*9+y, the order used by
+ * {@link SudokuGrid#returnGridSequence()}.
+ */
+public class CandidateEngine {
+
+    public static final int ALL_CANDIDATES = 0x1ff;
+
+    static final int[] CELL_X = new int[81];
+    static final int[] CELL_Y = new int[81];
+    static final int[] CELL_SQUARE = new int[81];
+
+    /*
+     * Cell indices of the 9 vertical lines, 9 horizontal lines and 9
+     * squares, in ascending order: the k-th cell of vertical line x has
+     * y == k, of horizontal line y has x == k and of a square has
+     * 3*(x%3)+(y%3) == k.
+     */
+    static final int[][] UNITS = new int[27][9];
+
+    static {
+        int[] fill = new int[27];
+        for (int i = 0; i < 81; i++) {
+            CELL_X[i] = i / 9;
+            CELL_Y[i] = i % 9;
+            CELL_SQUARE[i] = squareIndex(CELL_X[i], CELL_Y[i]);
+            UNITS[CELL_X[i]][fill[CELL_X[i]]++] = i;
+            UNITS[9 + CELL_Y[i]][fill[9 + CELL_Y[i]]++] = i;
+            UNITS[18 + CELL_SQUARE[i]][fill[18 + CELL_SQUARE[i]]++] = i;
+        }
+    }
+
+    private final int[] vertical;
+    private final int[] horizontal;
+    private final int[] square;
+
+    // number of occurrences of each value (index val-1) in every line/square
+    private final int[] verticalCount;
+    private final int[] horizontalCount;
+    private final int[] squareCount;
+
+    private int filled;
+    private int duplicates;
+
+    public CandidateEngine() {
+        vertical = new int[9];
+        horizontal = new int[9];
+        square = new int[9];
+        verticalCount = new int[81];
+        horizontalCount = new int[81];
+        squareCount = new int[81];
+    }
+
+    public static int cellIndex(int x, int y) {
+        return x * 9 + y;
+    }
+
+    public static int squareIndex(int x, int y) {
+        return 3 * (x / 3) + (y / 3);
+    }
+
+    public void reset() {
+        for (int i = 0; i < 9; i++) {
+            vertical[i] = horizontal[i] = square[i] = 0;
+        }
+        for (int i = 0; i < 81; i++) {
+            verticalCount[i] = horizontalCount[i] = squareCount[i] = 0;
+        }
+        filled = duplicates = 0;
+    }
+
+    /**
+     * Replaces the value of a cell. Values outside of 1..9 count as empty.
+     */
+    public void update(int x, int y, int oldVal, int newVal) {
+        if (oldVal == newVal) {
+            return;
+        }
+        if (oldVal >= 1 && oldVal <= 9) {
+            remove(x, y, oldVal);
+        }
+        if (newVal >= 1 && newVal <= 9) {
+            place(x, y, newVal);
+        }
+    }
+
+    private void place(int x, int y, int val) {
+        int bit = 1 << (val - 1);
+        int n = squareIndex(x, y);
+        duplicates += increment(verticalCount, x, val);
+        duplicates += increment(horizontalCount, y, val);
+        duplicates += increment(squareCount, n, val);
+        vertical[x] |= bit;
+        horizontal[y] |= bit;
+        square[n] |= bit;
+        filled++;
+    }
+
+    private void remove(int x, int y, int val) {
+        int bit = 1 << (val - 1);
+        int n = squareIndex(x, y);
+        if (decrement(verticalCount, x, val)) {
+            vertical[x] &= ~bit;
+        } else {
+            duplicates--;
+        }
+        if (decrement(horizontalCount, y, val)) {
+            horizontal[y] &= ~bit;
+        } else {
+            duplicates--;
+        }
+        if (decrement(squareCount, n, val)) {
+            square[n] &= ~bit;
+        } else {
+            duplicates--;
+        }
+        filled--;
+    }
+
+    // returns 1 if the value was already present in the line/square
+    private static int increment(int[] count, int line, int val) {
+        return count[line * 9 + val - 1]++ > 0 ? 1 : 0;
+    }
+
+    // returns true if the value is no longer present in the line/square
+    private static boolean decrement(int[] count, int line, int val) {
+        return --count[line * 9 + val - 1] == 0;
+    }
+
+    /**
+     * @return 9-bit mask of the values that are not yet used in the vertical
+     *         line, horizontal line and square of the cell; bit 0 is value 1
+     */
+    public int getCandidates(int x, int y) {
+        return ALL_CANDIDATES & ~(vertical[x] | horizontal[y] | square[squareIndex(x, y)]);
+    }
+
+    public int getVertical(int x) {
+        return vertical[x];
+    }
+
+    public int getHorizontal(int y) {
+        return horizontal[y];
+    }
+
+    public int getSquare(int n) {
+        return square[n];
+    }
+
+    public int getFilledCount() {
+        return filled;
+    }
+
+    public boolean isValid() {
+        return duplicates == 0;
+    }
+
+    public boolean isSolved() {
+        return filled == 81 && duplicates == 0;
+    }
+}
@@ -0,0 +1,378 @@
+/* Canonicalizer created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Maps a grid to the canonical representative of its equivalence class
+ * under the Sudoku symmetry group: transposition, permutations of the
+ * bands, of the lines within a band, of the stacks and of the columns
+ * within a stack, and relabelling of the values.
+ * <p>
+ * The representative is the lexicographically smallest 81 value sequence
+ * (read x*9+y, open cells as 0) among all transformed grids whose values
+ * are relabelled in order of first appearance, which is the smallest
+ * relabelling of a given arrangement. It is built line by line: after the
+ * first line only the transforms producing the smallest prefix so far
+ * are kept, so the search follows the few ties instead of trying all
+ * 2*6^8 transforms. A Canonicalizer reuses its buffers and must not be
+ * shared between threads.
+ * <p>
+ * Grids with few givens tie on most transforms, since open cells cannot
+ * tell columns apart. Surviving transforms that would continue alike,
+ * being equal up to columns with the same values in all remaining lines,
+ * are merged after every line. The first line is still compared in all
+ * 2*9*1296 ways, so the worst case, the empty and near-empty grids, costs
+ * about 35000 line comparisons, a few milliseconds; puzzles of 17 and
+ * more givens mostly need a few thousand.
+ */
+public class Canonicalizer {
+
+    // all 6^4 column orders: a stack order and an order within every stack
+    private static final int[][] COLUMN_ORDERS = new int[1296][9];
+    private static final int[][] PERMUTATIONS_3 = {
+        {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+
+    static {
+        int n = 0;
+        for (int[] stacks : PERMUTATIONS_3) {
+            for (int[] a : PERMUTATIONS_3) {
+                for (int[] b : PERMUTATIONS_3) {
+                    for (int[] c : PERMUTATIONS_3) {
+                        int[][] within = {a, b, c};
+                        for (int s = 0; s < 3; s++) {
+                            for (int k = 0; k < 3; k++) {
+                                COLUMN_ORDERS[n][s * 3 + k] = stacks[s] * 3 + within[s][k];
+                            }
+                        }
+                        n++;
+                    }
+                }
+            }
+        }
+    }
+
+    // the grid and its transpose
+    private final int[][] grids = new int[2][81];
+    private final int[] best = new int[81];
+    private final int[] line = new int[9];
+    private final int[] labels = new int[10];
+
+    /*
+     * Surviving transforms of the current and the next line: transpose,
+     * column order, source lines used (bit mask), band of the last line
+     * and the value relabelling found so far (10 entries each, the next
+     * free label at index 0).
+     */
+    private Partial current = new Partial();
+    private Partial next = new Partial();
+    private long tried;
+    private final HashSet<Key> seen = new HashSet<Key>();
+
+    // partials kept without looking for equivalent ones, see dropEquivalent()
+    private static final int FEW_PARTIALS = 16;
+
+    // what decides the rest of a canonical grid, see dropEquivalent()
+    private static final class Key {
+        final long state;
+        final long columns;
+
+        Key(long state, long columns) {
+            this.state = state;
+            this.columns = columns;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = state * 0x9E3779B97F4A7C15L + columns;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return state == other.state && columns == other.columns;
+        }
+    }
+
+    // column classes per grid and lines used, valid for the stamp
+    private final int[][] columnClasses = new int[1024][9];
+    private final int[] classStamp = new int[1024];
+    private int stamp;
+
+    public Canonicalizer() {
+    }
+
+    private static final class Partial {
+        int size;
+        int[] transpose = new int[64];
+        int[] order = new int[64];
+        int[] used = new int[64];
+        int[] band = new int[64];
+        int[] labels = new int[640];
+
+        void clear() {
+            size = 0;
+        }
+
+        void move(int from, int to) {
+            transpose[to] = transpose[from];
+            order[to] = order[from];
+            used[to] = used[from];
+            band[to] = band[from];
+            System.arraycopy(labels, from * 10, labels, to * 10, 10);
+        }
+
+        void add(int t, int o, int u, int b, int[] map) {
+            if (size == transpose.length) {
+                int n = size * 2;
+                transpose = Arrays.copyOf(transpose, n);
+                order = Arrays.copyOf(order, n);
+                used = Arrays.copyOf(used, n);
+                band = Arrays.copyOf(band, n);
+                labels = Arrays.copyOf(labels, n * 10);
+            }
+            transpose[size] = t;
+            order[size] = o;
+            used[size] = u;
+            band[size] = b;
+            System.arraycopy(map, 0, labels, size * 10, 10);
+            size++;
+        }
+    }
+
+    /**
+     * @param values 81 values indexed x*9+y, 0 for an open cell
+     * @param result receives the canonical grid, may be <code>values</code>
+     */
+    public void canonicalize(int[] values, int[] result) {
+        for (int i = 0; i < 81; i++) {
+            if (values[i] < 0 || values[i] > 9) {
+                throw new IllegalArgumentException("Cell value is illegal.");
+            }
+            grids[0][i] = values[i];
+            grids[1][(i % 9) * 9 + i / 9] = values[i];
+        }
+        tried = 0;
+
+        // first line: every column order of the source lines that can give
+        // the smallest one
+        int top = 0;
+        for (int t = 0; t < 2; t++) {
+            for (int src = 0; src < 9; src++) {
+                top = Math.max(top, openScore(grids[t], src));
+            }
+        }
+        current.clear();
+        for (int t = 0; t < 2; t++) {
+            for (int src = 0; src < 9; src++) {
+                if (openScore(grids[t], src) != top) {
+                    continue;
+                }
+                for (int o = 0; o < COLUMN_ORDERS.length; o++) {
+                    clearLabels();
+                    int c = compareLine(grids[t], src, COLUMN_ORDERS[o], labels, 0, current.size == 0);
+                    if (c <= 0) {
+                        if (c < 0) {
+                            current.clear();
+                        }
+                        current.add(t, o, 1 << src, src / 3, labels);
+                    }
+                }
+            }
+        }
+        dropEquivalent(current);
+
+        for (int row = 1; row < 9; row++) {
+            next.clear();
+            boolean newBand = row % 3 == 0;
+            for (int p = 0; p < current.size; p++) {
+                int[] grid = grids[current.transpose[p]];
+                int[] order = COLUMN_ORDERS[current.order[p]];
+                int used = current.used[p];
+                for (int src = 0; src < 9; src++) {
+                    if ((used & (1 << src)) != 0) {
+                        continue;
+                    }
+                    int b = src / 3;
+                    if (newBand ? (used & (7 << (3 * b))) != 0 : b != current.band[p]) {
+                        continue;
+                    }
+                    System.arraycopy(current.labels, p * 10, labels, 0, 10);
+                    int c = compareLine(grid, src, order, labels, row * 9, next.size == 0);
+                    if (c <= 0) {
+                        if (c < 0) {
+                            next.clear();
+                        }
+                        next.add(current.transpose[p], current.order[p], used | (1 << src), b, labels);
+                    }
+                }
+            }
+            dropEquivalent(next);
+            Partial swap = current;
+            current = next;
+            next = swap;
+        }
+        System.arraycopy(best, 0, result, 0, 81);
+    }
+
+    public PuzzleKey canonicalKey(int[] values) {
+        int[] canonical = new int[81];
+        canonicalize(values, canonical);
+        return PuzzleKey.of(canonical);
+    }
+
+    /**
+     * Canonical key of the default cells of the grid.
+     */
+    public PuzzleKey canonicalKey(SudokuGrid grid) {
+        int[] givens = new int[81];
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (grid.isDefault(x, y)) {
+                    givens[CandidateEngine.cellIndex(x, y)] = grid.getGridVal(x, y);
+                }
+            }
+        }
+        return canonicalKey(givens);
+    }
+
+    /**
+     * @return the number of line placements compared by the last call,
+     *         a measure of how well the search was pruned
+     */
+    public long getTriedCount() {
+        return tried;
+    }
+
+    /*
+     * Keeps only the first of the partial transforms that continue alike:
+     * same grid, lines used, band and relabelling, and at every position a
+     * column with the same values in all lines not used yet. Columns that
+     * are still open in those lines are interchangeable, so without this
+     * every column order of a near-empty grid would survive every line.
+     */
+    private void dropEquivalent(Partial p) {
+        if (p.size <= FEW_PARTIALS) {
+            return;
+        }
+        seen.clear();
+        stamp++;
+        int keep = 0;
+        for (int i = 0; i < p.size; i++) {
+            int[] classes = getColumnClasses(p.transpose[i], p.used[i]);
+            // relabelling values and the next free label fit 4 bits each
+            long state = ((long) p.transpose[i] << 11) | (p.used[i] << 2) | p.band[i];
+            for (int v = 0; v < 10; v++) {
+                state = (state << 4) | p.labels[i * 10 + v];
+            }
+            int[] order = COLUMN_ORDERS[p.order[i]];
+            long columns = 0;
+            for (int j = 0; j < 9; j++) {
+                columns = (columns << 4) | classes[order[j]];
+            }
+            if (seen.add(new Key(state, columns))) {
+                p.move(i, keep++);
+            }
+        }
+        p.size = keep;
+    }
+
+    /*
+     * Class of every column: the first column with the same values in all
+     * lines not used yet.
+     */
+    private int[] getColumnClasses(int t, int used) {
+        int index = t * 512 + used;
+        int[] classes = columnClasses[index];
+        if (classStamp[index] != stamp) {
+            classStamp[index] = stamp;
+            int[] grid = grids[t];
+            int unused = ~used & 0x1ff;
+            for (int c = 0; c < 9; c++) {
+                classes[c] = c;
+                for (int d = 0; d < c; d++) {
+                    if (sameColumn(grid, unused, c, d)) {
+                        classes[c] = d;
+                        break;
+                    }
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static boolean sameColumn(int[] grid, int lines, int c, int d) {
+        for (int r = 0; r < 9; r++) {
+            if ((lines & (1 << r)) != 0 && grid[r * 9 + c] != grid[r * 9 + d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void clearLabels() {
+        for (int i = 1; i < 10; i++) {
+            labels[i] = 0;
+        }
+        labels[0] = 1;
+    }
+
+    /*
+     * The values of a first line are always relabelled 1, 2, 3, ... so it
+     * is smallest if its open cells come first: the open cell counts of
+     * the stacks, in descending order, decide. A higher score is smaller.
+     */
+    private static int openScore(int[] grid, int src) {
+        int[] open = new int[3];
+        for (int j = 0; j < 9; j++) {
+            if (grid[src * 9 + j] == 0) {
+                open[j / 3]++;
+            }
+        }
+        int hi = Math.max(open[0], Math.max(open[1], open[2]));
+        int lo = Math.min(open[0], Math.min(open[1], open[2]));
+        return hi * 16 + (open[0] + open[1] + open[2] - hi - lo) * 4 + lo;
+    }
+
+    /*
+     * Relabels source line src in the given column order, extending the
+     * relabelling in map, and compares it with the best line at offset
+     * from. A smaller line, or any line if there is no best one yet
+     * (first), replaces the best one and returns -1; on a bigger one the
+     * comparison stops early and returns 1.
+     */
+    private int compareLine(int[] grid, int src, int[] order, int[] map, int from, boolean first) {
+        tried++;
+        int base = src * 9;
+        int c = first ? -1 : 0;
+        for (int j = 0; j < 9; j++) {
+            int v = grid[base + order[j]];
+            if (v != 0) {
+                if (map[v] == 0) {
+                    map[v] = map[0]++;
+                }
+                v = map[v];
+            }
+            line[j] = v;
+            if (c == 0) {
+                int b = best[from + j];
+                if (v > b) {
+                    return 1;
+                }
+                if (v < b) {
+                    c = -1;
+                }
+            }
+        }
+        if (c < 0) {
+            System.arraycopy(line, 0, best, from, 9);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,294 @@
+/* DancingLinksSolver created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import net.sourceforge.playsudoku.io.SerGrid;
+
+/**
+ * Exact cover solver (Knuth's Algorithm X with dancing links) for 9x9 grids.
+ * <p>
+ * The 729 x 324 cover matrix is built once per instance and kept in flat int
+ * arrays, so a solver can be reused for any number of grids without further
+ * allocation. Default cells of a {@link SudokuGrid} (or {@link SerGrid}) are
+ * treated as givens, all other cells are solved for. Cell values are indexed
+ * x*9+y like {@link SudokuGrid#returnGridSequence()}.
+ */
+public class DancingLinksSolver {
+
+    private static final int COLUMNS = 4 * 81;
+    private static final int ROWS = 9 * 81;
+    private static final int NODES = 1 + COLUMNS + 4 * ROWS;
+    private static final int ROOT = 0;
+
+    private final int[] left = new int[NODES];
+    private final int[] right = new int[NODES];
+    private final int[] up = new int[NODES];
+    private final int[] down = new int[NODES];
+    private final int[] column = new int[NODES];
+    private final int[] row = new int[NODES];
+    private final int[] size = new int[COLUMNS + 1];
+
+    private final boolean[] covered = new boolean[COLUMNS + 1];
+    private final int[] givenRows = new int[81];
+    private int givenCount;
+
+    private final int[] values = new int[81];
+    private final int[] solution = new int[81];
+    private long solutionCount;
+    private long limit;
+    private long nodes;
+    private SolutionObserver observer;
+
+    public DancingLinksSolver() {
+        for (int c = 0; c <= COLUMNS; c++) {
+            left[c] = c == 0 ? COLUMNS : c - 1;
+            right[c] = c == COLUMNS ? ROOT : c + 1;
+            up[c] = down[c] = column[c] = c;
+        }
+        int n = COLUMNS + 1;
+        for (int r = 0; r < ROWS; r++) {
+            int cell = r / 9;
+            int v = r % 9;
+            int x = CandidateEngine.CELL_X[cell];
+            int y = CandidateEngine.CELL_Y[cell];
+            int sq = CandidateEngine.CELL_SQUARE[cell];
+            int first = n;
+            n = appendNode(n, first, r, 1 + cell);
+            n = appendNode(n, first, r, 1 + 81 + x * 9 + v);
+            n = appendNode(n, first, r, 1 + 162 + y * 9 + v);
+            n = appendNode(n, first, r, 1 + 243 + sq * 9 + v);
+        }
+    }
+
+    private int appendNode(int n, int first, int r, int c) {
+        row[n] = r;
+        column[n] = c;
+        left[n] = n == first ? n : n - 1;
+        right[n] = first;
+        right[left[n]] = n;
+        left[first] = n;
+        up[n] = up[c];
+        down[n] = c;
+        down[up[c]] = n;
+        up[c] = n;
+        size[c]++;
+        return n + 1;
+    }
+
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    private static int firstNodeOfRow(int r) {
+        return COLUMNS + 1 + 4 * r;
+    }
+
+    /**
+     * Loads a new set of givens, replacing the previous ones.
+     *
+     * @param givens 81 values indexed x*9+y, 0 for an open cell
+     * @return false if the givens contradict each other
+     */
+    public boolean load(int[] givens) {
+        unload();
+        for (int cell = 0; cell < 81; cell++) {
+            int val = givens[cell];
+            if (val == 0) {
+                continue;
+            }
+            if (val < 0 || val > 9) {
+                throw new IllegalArgumentException("Cell value is illegal.");
+            }
+            int first = firstNodeOfRow(cell * 9 + val - 1);
+            int j = first;
+            do {
+                if (covered[column[j]]) {
+                    return false;
+                }
+                j = right[j];
+            } while (j != first);
+            j = first;
+            do {
+                covered[column[j]] = true;
+                cover(column[j]);
+                j = right[j];
+            } while (j != first);
+            givenRows[givenCount++] = row[first];
+            values[cell] = val;
+        }
+        return true;
+    }
+
+    private void unload() {
+        while (givenCount > 0) {
+            int first = firstNodeOfRow(givenRows[--givenCount]);
+            int j = left[first];
+            do {
+                uncover(column[j]);
+                covered[column[j]] = false;
+                j = left[j];
+            } while (j != left[first]);
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            values[cell] = 0;
+        }
+    }
+
+    public boolean load(SudokuGrid grid) {
+        int[] givens = new int[81];
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (grid.isDefault(x, y)) {
+                    givens[CandidateEngine.cellIndex(x, y)] = grid.getGridVal(x, y);
+                }
+            }
+        }
+        return load(givens);
+    }
+
+    public boolean load(SerGrid sg) {
+        int[] givens = new int[81];
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (SudokuGrid.isDefault(sg.grid[x][y])) {
+                    givens[CandidateEngine.cellIndex(x, y)] = SudokuGrid.getGridVal(sg.grid[x][y]);
+                }
+            }
+        }
+        return load(givens);
+    }
+
+    /**
+     * Enumerates the solutions of the loaded givens.
+     *
+     * @param so receives every solution found, may be null
+     * @param limit the enumeration stops after this many solutions
+     * @return the number of solutions found
+     */
+    public long enumerate(SolutionObserver so, long limit) {
+        this.observer = so;
+        this.limit = limit;
+        solutionCount = 0;
+        nodes = 0;
+        if (limit > 0) {
+            search();
+        }
+        observer = null;
+        return solutionCount;
+    }
+
+    public long countSolutions(long limit) {
+        return enumerate(null, limit);
+    }
+
+    /**
+     * @param result receives the first solution found, indexed x*9+y
+     * @return false if the loaded givens have no solution
+     */
+    public boolean solve(int[] result) {
+        if (enumerate(null, 1) == 0) {
+            return false;
+        }
+        System.arraycopy(solution, 0, result, 0, 81);
+        return true;
+    }
+
+    /**
+     * Solves the default cells of the grid and writes the solution to the
+     * grid values of the remaining cells, like {@link SudokuGenerator#solveGrid()}.
+     */
+    public boolean solve(SudokuGrid grid) {
+        if (!load(grid) || enumerate(null, 1) == 0) {
+            return false;
+        }
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (!grid.isDefault(x, y)) {
+                    grid.setGridVal(x, y, solution[CandidateEngine.cellIndex(x, y)]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves the default cells of the SerGrid in place; the solution is
+     * stored in the grid value bits of the remaining cells.
+     */
+    public boolean solve(SerGrid sg) {
+        if (!load(sg) || enumerate(null, 1) == 0) {
+            return false;
+        }
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (!SudokuGrid.isDefault(sg.grid[x][y])) {
+                    sg.grid[x][y] &= ~SudokuGrid.MASK_GRID_VAL;
+                    sg.grid[x][y] |= solution[CandidateEngine.cellIndex(x, y)];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of matrix rows tried by the last enumeration
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    // returns false once the enumeration has to stop
+    private boolean search() {
+        if (right[ROOT] == ROOT) {
+            System.arraycopy(values, 0, solution, 0, 81);
+            solutionCount++;
+            if (observer != null && !observer.solutionFound(solution)) {
+                return false;
+            }
+            return solutionCount < limit;
+        }
+        int c = right[ROOT];
+        for (int j = right[c]; j != ROOT; j = right[j]) {
+            if (size[j] < size[c]) {
+                c = j;
+            }
+        }
+        if (size[c] == 0) {
+            return true;
+        }
+        boolean go = true;
+        cover(c);
+        for (int r = down[c]; r != c && go; r = down[r]) {
+            nodes++;
+            values[row[r] / 9] = row[r] % 9 + 1;
+            for (int j = right[r]; j != r; j = right[j]) {
+                cover(column[j]);
+            }
+            go = search();
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(c);
+        return go;
+    }
+}
@@ -0,0 +1,470 @@
+/* DifficultyRater created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import net.sourceforge.playsudoku.GV.Technique;
+
+/**
+ * Rates puzzles by the human solving techniques they require.
+ * <p>
+ * The rater solves a puzzle the way a person would: every step applies the
+ * easiest {@link Technique} of the ladder that makes progress, and the
+ * puzzle is rated by the hardest technique that was needed. Puzzles the
+ * ladder cannot finish are rated {@link Technique#trialAndError}.
+ * <p>
+ * The candidate state is kept incrementally: besides the candidate mask of
+ * every cell, the rater keeps the positions left for every value in every
+ * line and square, so singles, subsets and fish are read off these masks
+ * instead of being recomputed after each step. Cells are indexed x*9+y like
+ * {@link SudokuGrid#returnGridSequence()}.
+ */
+public class DifficultyRater {
+
+    private static final int ALL = CandidateEngine.ALL_CANDIDATES;
+    private static final int[][] UNITS = CandidateEngine.UNITS;
+
+    // the vertical line, horizontal line and square of every cell (index
+    // cell*3+kind) and the position of the cell within them
+    private static final int[] CELL_UNIT = new int[81 * 3];
+    private static final int[] CELL_POS = new int[81 * 3];
+    private static final int[][] PEERS = new int[81][20];
+
+    // all 9-bit masks with 2 and with 3 bits set
+    private static final int[][] COMBINATIONS = new int[4][];
+
+    static {
+        for (int u = 0; u < 27; u++) {
+            for (int k = 0; k < 9; k++) {
+                int cell = UNITS[u][k];
+                CELL_UNIT[cell * 3 + u / 9] = u;
+                CELL_POS[cell * 3 + u / 9] = k;
+            }
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            int n = 0;
+            for (int other = 0; other < 81; other++) {
+                if (other != cell && (CandidateEngine.CELL_X[other] == CandidateEngine.CELL_X[cell]
+                        || CandidateEngine.CELL_Y[other] == CandidateEngine.CELL_Y[cell]
+                        || CandidateEngine.CELL_SQUARE[other] == CandidateEngine.CELL_SQUARE[cell])) {
+                    PEERS[cell][n++] = other;
+                }
+            }
+        }
+        for (int size = 2; size <= 3; size++) {
+            int n = 0;
+            int[] masks = new int[size == 2 ? 36 : 84];
+            for (int m = 0; m <= ALL; m++) {
+                if (Integer.bitCount(m) == size) {
+                    masks[n++] = m;
+                }
+            }
+            COMBINATIONS[size] = masks;
+        }
+    }
+
+    private final int[] values;
+    private final int[] candidates;
+    // positions left for value d+1 in unit u, index u*9+d; bit k is UNITS[u][k]
+    private final int[] where;
+    // values already placed in every unit
+    private final int[] placed;
+    private final int[] masks;
+    private final int[] steps;
+    private int open;
+    private boolean broken;
+    private Technique hardest;
+
+    public DifficultyRater() {
+        values = new int[81];
+        candidates = new int[81];
+        where = new int[27 * 9];
+        placed = new int[27];
+        masks = new int[9];
+        steps = new int[Technique.values().length];
+    }
+
+    /**
+     * Rates the default cells of the grid.
+     */
+    public Technique rate(SudokuGrid grid) {
+        int[] givens = new int[81];
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (grid.isDefault(x, y)) {
+                    givens[CandidateEngine.cellIndex(x, y)] = grid.getGridVal(x, y);
+                }
+            }
+        }
+        return rate(givens);
+    }
+
+    /**
+     * @param givens 81 values indexed x*9+y, 0 for an open cell
+     * @return the hardest technique needed, or null if the givens lead to a
+     *         contradiction
+     */
+    public Technique rate(int[] givens) {
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = 0;
+        }
+        hardest = null;
+        if (!load(givens)) {
+            return null;
+        }
+        while (open > 0 && !broken) {
+            Technique t = step();
+            if (t == null) {
+                hardest = Technique.trialAndError;
+                return hardest;
+            }
+            steps[t.ordinal()]++;
+            if (hardest == null || t.compareTo(hardest) > 0) {
+                hardest = t;
+            }
+        }
+        if (broken) {
+            hardest = null;
+        } else if (hardest == null) {
+            // nothing left to solve
+            hardest = Technique.hiddenSingle;
+        }
+        return hardest;
+    }
+
+    /**
+     * @return the rating of the last puzzle, see {@link #rate(int[])}
+     */
+    public Technique getHardest() {
+        return hardest;
+    }
+
+    /**
+     * @return how many steps of the last rating used the technique
+     */
+    public int getStepCount(Technique t) {
+        return steps[t.ordinal()];
+    }
+
+    /**
+     * @return the number of cells the last rating left open
+     */
+    public int getOpenCount() {
+        return open;
+    }
+
+    private boolean load(int[] givens) {
+        for (int cell = 0; cell < 81; cell++) {
+            values[cell] = 0;
+            candidates[cell] = ALL;
+        }
+        for (int i = 0; i < where.length; i++) {
+            where[i] = ALL;
+        }
+        for (int u = 0; u < 27; u++) {
+            placed[u] = 0;
+        }
+        open = 81;
+        broken = false;
+        for (int cell = 0; cell < 81; cell++) {
+            int val = givens[cell];
+            if (val == 0) {
+                continue;
+            }
+            if (val < 0 || val > 9) {
+                throw new IllegalArgumentException("Cell value is illegal.");
+            }
+            if ((candidates[cell] & (1 << (val - 1))) == 0) {
+                return false;
+            }
+            place(cell, val - 1);
+        }
+        return !broken;
+    }
+
+    private void place(int cell, int d) {
+        int bit = 1 << d;
+        eliminate(cell, ALL & ~bit);
+        values[cell] = d + 1;
+        candidates[cell] = 0;
+        open--;
+        for (int kind = 0; kind < 3; kind++) {
+            int u = CELL_UNIT[cell * 3 + kind];
+            placed[u] |= bit;
+            where[u * 9 + d] = 0;
+        }
+        int[] peers = PEERS[cell];
+        for (int i = 0; i < 20; i++) {
+            eliminate(peers[i], bit);
+        }
+    }
+
+    // returns false if none of the values was still a candidate of the cell
+    private boolean eliminate(int cell, int mask) {
+        int bits = candidates[cell] & mask;
+        if (bits == 0) {
+            return false;
+        }
+        candidates[cell] &= ~bits;
+        if (candidates[cell] == 0) {
+            broken = true;
+        }
+        for (int kind = 0; kind < 3; kind++) {
+            int u = CELL_UNIT[cell * 3 + kind];
+            int pos = ~(1 << CELL_POS[cell * 3 + kind]);
+            int b = bits;
+            while (b != 0) {
+                int d = Integer.numberOfTrailingZeros(b);
+                b &= b - 1;
+                if ((where[u * 9 + d] &= pos) == 0 && (placed[u] & (1 << d)) == 0) {
+                    broken = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    // applies the easiest technique that makes progress
+    private Technique step() {
+        if (hiddenSingles()) {
+            return Technique.hiddenSingle;
+        }
+        if (nakedSingles()) {
+            return Technique.nakedSingle;
+        }
+        if (lockedCandidates()) {
+            return Technique.lockedCandidates;
+        }
+        if (nakedSubsets(2)) {
+            return Technique.nakedPair;
+        }
+        if (hiddenSubsets(2)) {
+            return Technique.hiddenPair;
+        }
+        if (nakedSubsets(3)) {
+            return Technique.nakedTriple;
+        }
+        if (hiddenSubsets(3)) {
+            return Technique.hiddenTriple;
+        }
+        if (fish(2)) {
+            return Technique.xWing;
+        }
+        if (fish(3)) {
+            return Technique.swordfish;
+        }
+        return null;
+    }
+
+    private boolean hiddenSingles() {
+        boolean progress = false;
+        for (int u = 0; u < 27 && !broken; u++) {
+            int missing = ALL & ~placed[u];
+            while (missing != 0 && !broken) {
+                int d = Integer.numberOfTrailingZeros(missing);
+                missing &= missing - 1;
+                int w = where[u * 9 + d];
+                if (w != 0 && (w & (w - 1)) == 0) {
+                    place(UNITS[u][Integer.numberOfTrailingZeros(w)], d);
+                    progress = true;
+                }
+            }
+        }
+        return progress;
+    }
+
+    private boolean nakedSingles() {
+        boolean progress = false;
+        for (int cell = 0; cell < 81 && !broken; cell++) {
+            int mask = candidates[cell];
+            if (mask != 0 && (mask & (mask - 1)) == 0) {
+                place(cell, Integer.numberOfTrailingZeros(mask));
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    /*
+     * Pointing: the places left for a value in a square share a line, so
+     * the value leaves the rest of that line. Claiming: the places left in
+     * a line share a square, so the value leaves the rest of that square.
+     */
+    private boolean lockedCandidates() {
+        boolean progress = false;
+        for (int u = 0; u < 27; u++) {
+            int missing = ALL & ~placed[u];
+            while (missing != 0) {
+                int d = Integer.numberOfTrailingZeros(missing);
+                missing &= missing - 1;
+                int w = where[u * 9 + d];
+                if (Integer.bitCount(w) < 2) {
+                    continue;
+                }
+                int cell = UNITS[u][Integer.numberOfTrailingZeros(w)];
+                if (u >= 18) {
+                    int vertical = CELL_UNIT[cell * 3];
+                    int horizontal = CELL_UNIT[cell * 3 + 1];
+                    if (within(u, w, vertical)) {
+                        progress |= eliminateOutside(vertical, d, u);
+                    } else if (within(u, w, horizontal)) {
+                        progress |= eliminateOutside(horizontal, d, u);
+                    }
+                } else if (within(u, w, CELL_UNIT[cell * 3 + 2])) {
+                    progress |= eliminateOutside(CELL_UNIT[cell * 3 + 2], d, u);
+                }
+            }
+        }
+        return progress;
+    }
+
+    // true if all cells at the positions w of unit u belong to unit target
+    private static boolean within(int u, int w, int target) {
+        int kind = target / 9;
+        while (w != 0) {
+            int cell = UNITS[u][Integer.numberOfTrailingZeros(w)];
+            w &= w - 1;
+            if (CELL_UNIT[cell * 3 + kind] != target) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // removes the value from the cells of unit target that are not in unit exclude
+    private boolean eliminateOutside(int target, int d, int exclude) {
+        boolean progress = false;
+        int kind = exclude / 9;
+        for (int k = 0; k < 9; k++) {
+            int cell = UNITS[target][k];
+            if (CELL_UNIT[cell * 3 + kind] != exclude) {
+                progress |= eliminate(cell, 1 << d);
+            }
+        }
+        return progress;
+    }
+
+    /*
+     * Naked subset: n cells of a unit with only n values between them; the
+     * values leave the other cells of the unit.
+     */
+    private boolean nakedSubsets(int size) {
+        boolean progress = false;
+        for (int u = 0; u < 27; u++) {
+            int eligible = 0;
+            for (int k = 0; k < 9; k++) {
+                masks[k] = candidates[UNITS[u][k]];
+                int n = Integer.bitCount(masks[k]);
+                if (n >= 2 && n <= size) {
+                    eligible |= 1 << k;
+                }
+            }
+            if (Integer.bitCount(eligible) < size) {
+                continue;
+            }
+            for (int members : COMBINATIONS[size]) {
+                if ((members & ~eligible) != 0) {
+                    continue;
+                }
+                int union = union(members);
+                if (Integer.bitCount(union) != size) {
+                    continue;
+                }
+                for (int k = 0; k < 9; k++) {
+                    if ((members & (1 << k)) == 0) {
+                        progress |= eliminate(UNITS[u][k], union);
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    /*
+     * Hidden subset: n values with only n places left in a unit; these
+     * cells lose all other candidates.
+     */
+    private boolean hiddenSubsets(int size) {
+        boolean progress = false;
+        for (int u = 0; u < 27; u++) {
+            int eligible = 0;
+            for (int d = 0; d < 9; d++) {
+                masks[d] = where[u * 9 + d];
+                int n = Integer.bitCount(masks[d]);
+                if (n >= 2 && n <= size) {
+                    eligible |= 1 << d;
+                }
+            }
+            if (Integer.bitCount(eligible) < size) {
+                continue;
+            }
+            for (int members : COMBINATIONS[size]) {
+                if ((members & ~eligible) != 0) {
+                    continue;
+                }
+                int union = union(members);
+                if (Integer.bitCount(union) != size) {
+                    continue;
+                }
+                while (union != 0) {
+                    int k = Integer.numberOfTrailingZeros(union);
+                    union &= union - 1;
+                    progress |= eliminate(UNITS[u][k], ALL & ~members);
+                }
+            }
+        }
+        return progress;
+    }
+
+    /*
+     * X-Wing (2) and Swordfish (3): the places left for a value in n
+     * parallel lines lie in only n crossing lines, so the value leaves the
+     * other cells of the crossing lines. Position k of vertical line x is
+     * horizontal line k and vice versa.
+     */
+    private boolean fish(int size) {
+        boolean progress = false;
+        for (int d = 0; d < 9; d++) {
+            for (int base = 0; base <= 9; base += 9) {
+                int cover = 9 - base;
+                int eligible = 0;
+                for (int i = 0; i < 9; i++) {
+                    masks[i] = where[(base + i) * 9 + d];
+                    int n = Integer.bitCount(masks[i]);
+                    if (n >= 2 && n <= size) {
+                        eligible |= 1 << i;
+                    }
+                }
+                if (Integer.bitCount(eligible) < size) {
+                    continue;
+                }
+                for (int members : COMBINATIONS[size]) {
+                    if ((members & ~eligible) != 0) {
+                        continue;
+                    }
+                    int union = union(members);
+                    if (Integer.bitCount(union) != size) {
+                        continue;
+                    }
+                    while (union != 0) {
+                        int line = cover + Integer.numberOfTrailingZeros(union);
+                        union &= union - 1;
+                        for (int k = 0; k < 9; k++) {
+                            if ((members & (1 << k)) == 0) {
+                                progress |= eliminate(UNITS[line][k], 1 << d);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return progress;
+    }
+
+    private int union(int members) {
+        int union = 0;
+        while (members != 0) {
+            union |= masks[Integer.numberOfTrailingZeros(members)];
+            members &= members - 1;
+        }
+        return union;
+    }
+}
@@ -67,9 +67,27 @@ public class GV {
     public final static int DIFF_EASY = 34;
     public final static int DIFF_NORMAL = 30;
     public static final int DIFF_HARD = 26;
+    // most clues of SudokuGenerator.generateMinimalPuzzle(); no unique puzzle has fewer than 17
+    public static final int DIFF_MINIMAL = 22;
     
     public enum NumDistributuon {evenlyDistributedNumbers, evenlyFilled3x3Square3, random};
     
+    public enum Solver {backtracking, dancingLinks, parallel, propagation};
+    
+    // how SudokuGenerator fills a full grid; see GridTransformer
+    public enum GridSource {backtracking, transform};
+    
+    // clue layouts of SudokuGenerator.generateSymmetricPuzzle(); mirror is left to right
+    public enum Symmetry {none, rotational180, rotational90, diagonal, mirror};
+    
+    public enum SearchOrder {rowMajor, mostConstrained};
+    
+    public enum TieBreak {first, random, maxDegree};
+    
+    // human solving techniques, easiest first; see DifficultyRater
+    public enum Technique {hiddenSingle, nakedSingle, lockedCandidates, nakedPair, hiddenPair,
+        nakedTriple, hiddenTriple, xWing, swordfish, trialAndError};
+    
     public final static String ERROR_LOAD= "Sudoku could not be loaded!";
     
     public final static String ERROR_SAVE= "Sudoku has not been saved!";
@@ -1,22 +1,18 @@
 /* Move created on 30.01.2006 */
 package net.sourceforge.playsudoku;
 
-import java.util.Random;
-
 public class GeneratorMove {
     
     private int y;
     private int x;
     private int valIndex;
     private int[] availabeMoves;
-    private Random r;
     
     protected GeneratorMove(int x, int y, int[] availabeMoves, int valIndex) {
         this.y = y;
         this.x = x;
         this.availabeMoves = availabeMoves;
         this.valIndex = valIndex;
-        r = new Random();
     }
     
     protected int getX() {
@@ -0,0 +1,176 @@
+/* GridGeometry created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+/**
+ * Shape of a Sudoku of any size: boxes of boxRows x boxCols cells, a grid
+ * of size x size cells with size = boxRows*boxCols and the values 1 to
+ * size. Rectangular boxes such as 2x3 are allowed. Candidate sets are
+ * masks in a long, bit v-1 standing for value v, which limits the size to
+ * 64.
+ * <p>
+ * Cells are indexed row*size+col like the x*9+y of {@link SudokuGrid}.
+ * The units are the size rows, the size columns and the size boxes in this
+ * order; box b covers the rows from (b/boxRows)*boxRows and the columns
+ * from (b%boxRows)*boxCols.
+ */
+public final class GridGeometry {
+
+    public static final int MAX_SIZE = 64;
+
+    public static final GridGeometry STANDARD = new GridGeometry(3, 3);
+
+    // value symbols for text grids, '.' or '0' being an open cell
+    private static final String SYMBOLS = "123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final int boxRows;
+    private final int boxCols;
+    private final int size;
+    private final int cellCount;
+    private final long allCandidates;
+    private final int[] cellRow;
+    private final int[] cellCol;
+    private final int[] cellBox;
+    private final int[][] units;
+
+    private GridGeometry(int boxRows, int boxCols) {
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        size = boxRows * boxCols;
+        cellCount = size * size;
+        allCandidates = size == 64 ? -1L : (1L << size) - 1;
+        cellRow = new int[cellCount];
+        cellCol = new int[cellCount];
+        cellBox = new int[cellCount];
+        units = new int[3 * size][size];
+        int[] fill = new int[3 * size];
+        for (int i = 0; i < cellCount; i++) {
+            cellRow[i] = i / size;
+            cellCol[i] = i % size;
+            cellBox[i] = (cellRow[i] / boxRows) * boxRows + cellCol[i] / boxCols;
+            units[cellRow[i]][fill[cellRow[i]]++] = i;
+            units[size + cellCol[i]][fill[size + cellCol[i]]++] = i;
+            units[2 * size + cellBox[i]][fill[2 * size + cellBox[i]]++] = i;
+        }
+    }
+
+    /**
+     * @param boxRows number of rows of a box
+     * @param boxCols number of columns of a box
+     */
+    public static GridGeometry of(int boxRows, int boxCols) {
+        if (boxRows < 1 || boxCols < 1 || boxRows * boxCols > MAX_SIZE) {
+            throw new IllegalArgumentException("Box size is illegal.");
+        }
+        if (boxRows == 3 && boxCols == 3) {
+            return STANDARD;
+        }
+        return new GridGeometry(boxRows, boxCols);
+    }
+
+    public int getBoxRows() {
+        return boxRows;
+    }
+
+    public int getBoxCols() {
+        return boxCols;
+    }
+
+    /**
+     * @return the number of rows, columns, boxes and values
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public long getAllCandidates() {
+        return allCandidates;
+    }
+
+    public int cellIndex(int row, int col) {
+        return row * size + col;
+    }
+
+    public int getRow(int cell) {
+        return cellRow[cell];
+    }
+
+    public int getCol(int cell) {
+        return cellCol[cell];
+    }
+
+    public int getBox(int cell) {
+        return cellBox[cell];
+    }
+
+    /**
+     * @return the cells of unit u in ascending order; rows come first, then
+     *         columns, then boxes. The array is shared, do not modify it.
+     */
+    int[] getUnit(int u) {
+        return units[u];
+    }
+
+    public int getUnitCount() {
+        return units.length;
+    }
+
+    /**
+     * @param s one character per cell, '1'-'9' and 'A'-'Z' for the values
+     *        1 to 35, '.' or '0' for an open cell
+     * @return the values, or null if s is not a grid of this size
+     */
+    public int[] parse(CharSequence s) {
+        if (s.length() != cellCount) {
+            return null;
+        }
+        int[] values = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            char c = s.charAt(i);
+            if (c != '.' && c != '0') {
+                int v = SYMBOLS.indexOf(Character.toUpperCase(c)) + 1;
+                if (v <= 0 || v > size) {
+                    return null;
+                }
+                values[i] = v;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Inverse of {@link #parse(CharSequence)}, open cells as '.'.
+     */
+    public String format(int[] values) {
+        if (size > SYMBOLS.length()) {
+            throw new IllegalArgumentException("No symbols for grids of size " + size + ".");
+        }
+        StringBuilder sb = new StringBuilder(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            sb.append(values[i] == 0 ? '.' : SYMBOLS.charAt(values[i] - 1));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GridGeometry)) {
+            return false;
+        }
+        GridGeometry other = (GridGeometry) o;
+        return boxRows == other.boxRows && boxCols == other.boxCols;
+    }
+
+    @Override
+    public int hashCode() {
+        return boxRows * 65 + boxCols;
+    }
+
+    @Override
+    public String toString() {
+        return size + "x" + size + " (" + boxRows + "x" + boxCols + " boxes)";
+    }
+}
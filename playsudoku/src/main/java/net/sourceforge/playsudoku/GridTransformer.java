@@ -0,0 +1,91 @@
+/* GridTransformer created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.SplittableRandom;
+
+/**
+ * Produces full grids by applying a random member of the Sudoku symmetry
+ * group to one of a few seed grids: relabelling of the values,
+ * permutations of the bands, of the lines within a band, of the stacks
+ * and of the columns within a stack, and transposition. Every transform
+ * is equally likely, so the grids are uniformly mixed within the classes
+ * of the seeds, at the cost of a few dozen random numbers instead of a
+ * search. Grids outside these classes are only found by the
+ * {@link GV.GridSource#backtracking} generation.
+ */
+public class GridTransformer {
+
+    // canonical grids of different equivalence classes, see Canonicalizer
+    private static final String[] SEEDS = {
+        "123456789457189236689273541238967154764315892915824673371698425592741368846532917",
+        "123456789457189236896237145261374958384925671579861423645793812738612594912548367",
+        "123456789456789123789132546215694837348527961697318254571243698832961475964875312",
+        "123456789457189236689237415216874953394561827578923641765342198841795362932618574",
+        "123456789457189236689237451274395168315864972968712543541628397736941825892573614",
+        "123456789456789132789231546295178364631924857847365291362597418518642973974813625"
+    };
+
+    private static final int[][] SEED_GRIDS = new int[SEEDS.length][81];
+
+    static {
+        for (int s = 0; s < SEEDS.length; s++) {
+            for (int i = 0; i < 81; i++) {
+                SEED_GRIDS[s][i] = SEEDS[s].charAt(i) - '0';
+            }
+        }
+    }
+
+    private final int[] labels = new int[10];
+    private final int[] rows = new int[9];
+    private final int[] cols = new int[9];
+
+    public GridTransformer() {
+    }
+
+    /**
+     * @param random source of the seed and the transform
+     * @param result receives the 81 values of the grid, indexed x*9+y
+     */
+    public void nextGrid(SplittableRandom random, int[] result) {
+        int[] seed = SEED_GRIDS[random.nextInt(SEED_GRIDS.length)];
+        labels[0] = 0;
+        for (int v = 1; v < 10; v++) {
+            labels[v] = v;
+        }
+        shuffle(random, labels, 1, 9);
+        shuffleLines(random, rows);
+        shuffleLines(random, cols);
+        boolean transpose = random.nextBoolean();
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                int v = seed[rows[x] * 9 + cols[y]];
+                result[transpose ? y * 9 + x : x * 9 + y] = labels[v];
+            }
+        }
+    }
+
+    /*
+     * A random line order that keeps the lines of a band together: the
+     * bands are shuffled, then the lines within every band.
+     */
+    private static void shuffleLines(SplittableRandom random, int[] lines) {
+        int[] bands = {0, 1, 2};
+        shuffle(random, bands, 0, 3);
+        for (int b = 0; b < 3; b++) {
+            for (int k = 0; k < 3; k++) {
+                lines[b * 3 + k] = bands[b] * 3 + k;
+            }
+            shuffle(random, lines, b * 3, 3);
+        }
+    }
+
+    // Fisher-Yates shuffle of a[from] to a[from+n-1]
+    private static void shuffle(SplittableRandom random, int[] a, int from, int n) {
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = a[from + i];
+            a[from + i] = a[from + j];
+            a[from + j] = t;
+        }
+    }
+}
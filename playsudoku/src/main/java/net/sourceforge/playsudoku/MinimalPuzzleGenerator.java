@@ -0,0 +1,269 @@
+/* MinimalPuzzleGenerator created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Digs minimal puzzles, puzzles with a unique solution of which no given
+ * can be removed without losing uniqueness, from full grids, testing the
+ * candidate removals in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * Uniqueness is monotonic: a given whose removal leaves several solutions
+ * still does after further givens are removed. Every given is therefore
+ * tested until it is either removed or found necessary once, and the
+ * necessary ones are never tested again. In every round the next
+ * <code>batchSize</code> candidates are tested at the same time, each on
+ * its own copy of the {@link BitboardSolver}; the removable ones are then
+ * removed together if the puzzle stays unique, otherwise only the first
+ * of them is. The dig ends when no candidate is left, so the puzzle it
+ * returns is minimal by construction.
+ * <p>
+ * Digging a grid once gives minimal puzzles of mostly 23 to 26 givens.
+ * {@link #improve(int[], int[], SplittableRandom, int, int, int[])} walks
+ * from one to smaller ones of the same solution; 100 steps mostly reach
+ * 20 or 21 givens, 500 steps sometimes 19.
+ */
+public class MinimalPuzzleGenerator {
+
+    // open cells a step of improve() adds at least
+    private static final int ADDED = 2;
+
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private AtomicBoolean cancelled;
+
+    public MinimalPuzzleGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MinimalPuzzleGenerator(ForkJoinPool pool) {
+        this(pool, Math.max(4, pool.getParallelism()));
+    }
+
+    public MinimalPuzzleGenerator(ForkJoinPool pool, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * improve() stops after the current step once the flag is set.
+     */
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @param solution a full grid, 81 values indexed x*9+y
+     * @param random order in which the givens are tried
+     * @param result receives the minimal puzzle, 0 for an open cell
+     * @return the number of givens of the puzzle
+     */
+    public int minimize(int[] solution, SplittableRandom random, int[] result) {
+        checkSolution(solution);
+        return dig(solution, solution, random, result);
+    }
+
+    /**
+     * Walks from a minimal puzzle to minimal puzzles of the same solution
+     * with fewer givens. Every step removes one given at random, adds
+     * random open cells of the solution until the puzzle is unique again,
+     * at least <code>ADDED</code> of them, and digs the result down to a
+     * minimal puzzle. It replaces the current puzzle unless it has more
+     * givens, so the walk crosses plateaus of equal size.
+     *
+     * @param puzzle a puzzle of the solution with a unique solution
+     * @param steps the number of steps at most
+     * @param target the walk stops once the puzzle has at most this many
+     *        givens
+     * @param result receives the puzzle with the fewest givens found, may
+     *        be <code>puzzle</code>
+     * @return the number of givens of that puzzle
+     */
+    public int improve(int[] solution, int[] puzzle, SplittableRandom random,
+            int steps, int target, int[] result) {
+        checkSolution(solution);
+        int[] current = new int[81];
+        int count = dig(solution, puzzle, random, current);
+        int[] trial = new int[81];
+        int[] open = new int[81];
+        BitboardSolver bs = new BitboardSolver();
+        for (int step = 0; step < steps && count > target; step++) {
+            if (cancelled != null && cancelled.get()) {
+                break;
+            }
+            System.arraycopy(current, 0, trial, 0, 81);
+            int n = 0;
+            int removed = random.nextInt(count);
+            for (int cell = 0; cell < 81; cell++) {
+                if (current[cell] == 0) {
+                    open[n++] = cell;
+                } else if (removed-- == 0) {
+                    trial[cell] = 0;
+                }
+            }
+            bs.load(trial);
+            // add open cells in random order until the puzzle is unique
+            for (int added = 0; n > 0; added++) {
+                if (added >= ADDED && bs.countSolutions(2) == 1) {
+                    break;
+                }
+                int k = random.nextInt(n);
+                int cell = open[k];
+                open[k] = open[--n];
+                trial[cell] = solution[cell];
+                bs.setGiven(cell, solution[cell]);
+            }
+            int c = dig(solution, trial, random, trial);
+            if (c <= count) {
+                System.arraycopy(trial, 0, current, 0, 81);
+                count = c;
+            }
+        }
+        System.arraycopy(current, 0, result, 0, 81);
+        return count;
+    }
+
+    private static void checkSolution(int[] solution) {
+        BitboardSolver bs = new BitboardSolver();
+        if (!bs.load(solution) || bs.getGivenCount() != 81) {
+            throw new IllegalArgumentException("Grid is not a solution.");
+        }
+    }
+
+    /*
+     * Digs the givens of start, a unique puzzle of the solution, down to a
+     * minimal puzzle in result, which may be start.
+     */
+    private int dig(int[] solution, int[] start, SplittableRandom random, int[] result) {
+        BitboardSolver bs = new BitboardSolver();
+        bs.load(start);
+        int open = 0;
+        int[] candidates = new int[81];
+        for (int cell = 0; cell < 81; cell++) {
+            if (start[cell] != 0) {
+                candidates[open++] = cell;
+            }
+        }
+        for (int i = open - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = t;
+        }
+
+        boolean[] removable = new boolean[batchSize];
+        int[] removed = new int[batchSize];
+        while (open > 0) {
+            int k = Math.min(open, batchSize);
+            testRemovals(bs, candidates, k, removable);
+            int n = 0;
+            for (int i = 0; i < k; i++) {
+                if (removable[i]) {
+                    removed[n++] = candidates[i];
+                }
+            }
+            if (n > 1) {
+                for (int i = 0; i < n; i++) {
+                    bs.clearGiven(removed[i]);
+                }
+                if (bs.countSolutions(2) != 1) {
+                    for (int i = 1; i < n; i++) {
+                        bs.setGiven(removed[i], solution[removed[i]]);
+                    }
+                    n = 1;
+                }
+            } else if (n == 1) {
+                bs.clearGiven(removed[0]);
+            }
+
+            // drop the removed and the necessary givens, keep the others
+            int keep = 0;
+            for (int i = 0; i < k; i++) {
+                int cell = candidates[i];
+                if (removable[i] && bs.getGiven(cell) != 0) {
+                    candidates[keep++] = cell;
+                }
+            }
+            System.arraycopy(candidates, k, candidates, keep, open - k);
+            open -= k - keep;
+        }
+        for (int cell = 0; cell < 81; cell++) {
+            result[cell] = bs.getGiven(cell);
+        }
+        return bs.getGivenCount();
+    }
+
+    /**
+     * @param puzzle 81 values indexed x*9+y, 0 for an open cell
+     * @return true if the puzzle has a unique solution and every given is
+     *         necessary for it
+     */
+    public boolean isMinimal(int[] puzzle) {
+        BitboardSolver bs = new BitboardSolver();
+        if (!bs.load(puzzle) || bs.countSolutions(2) != 1) {
+            return false;
+        }
+        int[] givens = new int[81];
+        int n = 0;
+        for (int cell = 0; cell < 81; cell++) {
+            if (puzzle[cell] != 0) {
+                givens[n++] = cell;
+            }
+        }
+        boolean[] removable = new boolean[n];
+        testRemovals(bs, givens, n, removable);
+        for (int i = 0; i < n; i++) {
+            if (removable[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * removable[i] is set if removing cells[i] alone from the givens of bs
+     * leaves a unique solution, for i < n. bs is not modified.
+     */
+    private void testRemovals(BitboardSolver bs, int[] cells, int n, boolean[] removable) {
+        if (n == 1) {
+            removable[0] = new RemovalTest(bs, cells[0]).call();
+            return;
+        }
+        List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            tasks.add(ForkJoinTask.adapt(new RemovalTest(bs, cells[i])));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            ForkJoinTask.invokeAll(tasks);
+        }));
+        for (int i = 0; i < n; i++) {
+            removable[i] = tasks.get(i).join();
+        }
+    }
+
+    private static class RemovalTest implements Callable<Boolean> {
+        final BitboardSolver base;
+        final int cell;
+
+        RemovalTest(BitboardSolver base, int cell) {
+            this.base = base;
+            this.cell = cell;
+        }
+
+        @Override
+        public Boolean call() {
+            BitboardSolver bs = new BitboardSolver(base);
+            bs.clearGiven(cell);
+            return bs.countSolutions(2) == 1;
+        }
+    }
+}
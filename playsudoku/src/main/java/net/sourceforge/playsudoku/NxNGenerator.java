@@ -0,0 +1,306 @@
+/* NxNGenerator created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Generates and solves puzzles of any {@link GridGeometry} with an
+ * {@link NxNSolver}, following the generate/solve methods of
+ * {@link SudokuGenerator}.
+ * <p>
+ * A full grid is found by a search in random value order from a random
+ * first row; searches running into a dead end for too long are restarted.
+ * A puzzle is dug from a full grid by removing the cells in random order,
+ * each one only if the puzzle stays unique, until the requested number of
+ * hints is left or no cell can be removed any more. As in
+ * {@link MinimalPuzzleGenerator} the removals are tested in batches on the
+ * common {@link ForkJoinPool}, and the removable cells of a batch are
+ * removed together if the puzzle stays unique. Values are indexed
+ * row*size+col, 0 for an open cell.
+ * <p>
+ * A test giving up at the node limit keeps its cell. On large grids these
+ * tests take over once about half of the cells are open, each costing the
+ * full limit while hardly any of them would succeed, so the dig ends when
+ * more than half of the last <code>LIMITED_WINDOW</code> tests were given
+ * up. On one core a 16x16 puzzle then takes some 0.3 s, a 20x20 puzzle
+ * some 4 s and a 25x25 puzzle some 5 s instead of 40 s, at about 10 more
+ * of its 625 cells left as hints.
+ */
+public class NxNGenerator {
+
+    // guesses allowed per cell before a search is given up
+    private static final int NODES_PER_CELL = 20;
+    // removal tests over which the share given up at the node limit is taken
+    private static final int LIMITED_WINDOW = 16;
+
+    private final GridGeometry geometry;
+    private final NxNSolver solver;
+    private final int[] solution;
+    private final int[] puzzle;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private SplittableRandom random;
+
+    public NxNGenerator(GridGeometry geometry) {
+        this.geometry = geometry;
+        solver = new NxNSolver(geometry);
+        solution = new int[geometry.getCellCount()];
+        puzzle = new int[geometry.getCellCount()];
+        pool = ForkJoinPool.commonPool();
+        // a batch of removals needs one more test to be verified, which
+        // only pays off if its tests run in parallel
+        batchSize = pool.getParallelism() > 1 ? Math.max(4, pool.getParallelism()) : 1;
+        random = new SplittableRandom();
+    }
+
+    /**
+     * A generator that reproduces the same grids and puzzles for the same
+     * seed and calls.
+     */
+    public NxNGenerator(GridGeometry geometry, long seed) {
+        this(geometry);
+        random = new SplittableRandom(seed);
+    }
+
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @return a generator for the same geometry with an independent random
+     *         stream split off this one, for another worker thread
+     */
+    public NxNGenerator split() {
+        NxNGenerator other = new NxNGenerator(geometry);
+        other.random = random.split();
+        return other;
+    }
+
+    public GridGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return the solution of the current puzzle, all 0 if there is none
+     */
+    public int[] getSolution() {
+        return solution.clone();
+    }
+
+    /**
+     * @return the hints of the current puzzle, 0 for an open cell
+     */
+    public int[] getPuzzle() {
+        return puzzle.clone();
+    }
+
+    public int getHintCount() {
+        int count = 0;
+        for (int v : puzzle) {
+            if (v != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replaces the current puzzle; the solution is unknown until
+     * {@link #solvePuzzle()} is called.
+     *
+     * @return false if the hints contradict each other
+     */
+    public boolean load(int[] hints) {
+        if (hints.length != puzzle.length) {
+            throw new IllegalArgumentException("Grid size incompatible.");
+        }
+        for (int i = 0; i < puzzle.length; i++) {
+            if (hints[i] < 0 || hints[i] > geometry.getSize()) {
+                throw new IllegalArgumentException("Cell value is illegal.");
+            }
+        }
+        System.arraycopy(hints, 0, puzzle, 0, puzzle.length);
+        Arrays.fill(solution, 0);
+        return solver.load(puzzle);
+    }
+
+    /**
+     * @return false if the current puzzle has no solution
+     */
+    public boolean solvePuzzle() {
+        solver.setRandom(null);
+        solver.setNodeLimit(0);
+        return solver.load(puzzle) && solver.solve(solution);
+    }
+
+    public int countSolutions(int limit) {
+        solver.setRandom(null);
+        solver.setNodeLimit(0);
+        if (!solver.load(puzzle)) {
+            return 0;
+        }
+        return solver.countSolutions(limit);
+    }
+
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * Generates a random full grid, which becomes the solution and, with
+     * every cell given, the puzzle.
+     */
+    public void generateGrid() {
+        int size = geometry.getSize();
+        solver.setRandom(random);
+        solver.setNodeLimit((long) NODES_PER_CELL * geometry.getCellCount());
+        do {
+            solver.clear();
+            int[] first = new int[size];
+            for (int i = 0; i < size; i++) {
+                first[i] = i + 1;
+            }
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = first[i];
+                first[i] = first[j];
+                first[j] = t;
+            }
+            for (int col = 0; col < size; col++) {
+                solver.setGiven(geometry.cellIndex(0, col), first[col]);
+            }
+        } while (!solver.solve(solution));
+        solver.setRandom(null);
+        System.arraycopy(solution, 0, puzzle, 0, puzzle.length);
+    }
+
+    /**
+     * Generates a random puzzle with a unique solution.
+     *
+     * @param hints number of hints wanted; more are left if no further
+     *        cell can be removed without losing uniqueness
+     */
+    public void generatePuzzle(int hints) {
+        generateGrid();
+        digPuzzle(hints);
+    }
+
+    private void digPuzzle(int hints) {
+        int cellCount = geometry.getCellCount();
+        int[] candidates = new int[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            candidates[i] = i;
+        }
+        for (int i = cellCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = candidates[i];
+            candidates[i] = candidates[j];
+            candidates[j] = t;
+        }
+        long nodeLimit = (long) NODES_PER_CELL * cellCount;
+        solver.setNodeLimit(nodeLimit);
+        solver.load(solution);
+
+        int[] results = new int[batchSize];
+        int[] removed = new int[batchSize];
+        int open = cellCount;
+        int tested = 0;
+        int limited = 0;
+        while (open > 0 && solver.getGivenCount() > hints) {
+            int k = Math.min(Math.min(open, batchSize), solver.getGivenCount() - hints);
+            testRemovals(candidates, k, nodeLimit, results);
+            int n = 0;
+            for (int i = 0; i < k; i++) {
+                if (results[i] == 1) {
+                    removed[n++] = candidates[i];
+                } else if (results[i] < 0) {
+                    limited++;
+                }
+            }
+            if (n > 1) {
+                for (int i = 0; i < n; i++) {
+                    solver.clearGiven(removed[i]);
+                }
+                if (solver.countSolutions(2) != 1 || solver.isNodeLimitReached()) {
+                    for (int i = 1; i < n; i++) {
+                        solver.setGiven(removed[i], solution[removed[i]]);
+                    }
+                }
+            } else if (n == 1) {
+                solver.clearGiven(removed[0]);
+            }
+
+            // drop the removed and the kept cells, test the others again
+            int keep = 0;
+            for (int i = 0; i < k; i++) {
+                int cell = candidates[i];
+                if (results[i] == 1 && solver.getGiven(cell) != 0) {
+                    candidates[keep++] = cell;
+                }
+            }
+            System.arraycopy(candidates, k, candidates, keep, open - k);
+            open -= k - keep;
+
+            tested += k;
+            if (tested >= LIMITED_WINDOW) {
+                if (2 * limited > tested) {
+                    break;
+                }
+                tested = limited = 0;
+            }
+        }
+        solver.setNodeLimit(0);
+        for (int i = 0; i < cellCount; i++) {
+            puzzle[i] = solver.getGiven(i);
+        }
+    }
+
+    /*
+     * results[i] receives the number of solutions, at most 2, left by
+     * removing cells[i] alone from the givens of the solver, or -1 if the
+     * search gave up at the node limit, for i < n.
+     */
+    private void testRemovals(int[] cells, int n, long nodeLimit, int[] results) {
+        if (n == 1) {
+            results[0] = new RemovalTest(solver, cells[0], nodeLimit).call();
+            return;
+        }
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            tasks.add(ForkJoinTask.adapt(new RemovalTest(solver, cells[i], nodeLimit)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            ForkJoinTask.invokeAll(tasks);
+        }));
+        for (int i = 0; i < n; i++) {
+            results[i] = tasks.get(i).join();
+        }
+    }
+
+    private static class RemovalTest implements Callable<Integer> {
+        final NxNSolver base;
+        final int cell;
+        final long nodeLimit;
+
+        RemovalTest(NxNSolver base, int cell, long nodeLimit) {
+            this.base = base;
+            this.cell = cell;
+            this.nodeLimit = nodeLimit;
+        }
+
+        @Override
+        public Integer call() {
+            NxNSolver ns = new NxNSolver(base);
+            ns.setNodeLimit(nodeLimit);
+            ns.clearGiven(cell);
+            int count = ns.countSolutions(2);
+            return ns.isNodeLimitReached() ? -1 : count;
+        }
+    }
+}
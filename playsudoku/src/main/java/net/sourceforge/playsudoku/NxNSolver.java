@@ -0,0 +1,413 @@
+/* NxNSolver created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link BitboardSolver} for grids of any {@link GridGeometry}: the row,
+ * column and box masks and the candidate sets are longs, so sizes up to
+ * 64 are supported, 16x16 and 25x25 included.
+ * <p>
+ * The API follows BitboardSolver: givens stay loaded between calls and can
+ * be changed cell by cell, every search restores the state it started
+ * from, naked and hidden singles are propagated and the search branches on
+ * the cell with the fewest candidates. With a {@link SplittableRandom} set
+ * the values of a decision are tried in random order, which the
+ * {@link NxNGenerator} uses to fill empty grids.
+ */
+public class NxNSolver {
+
+    private final GridGeometry geometry;
+    private final int size;
+    private final int cellCount;
+    private final long allCandidates;
+    private final int[] cellRow;
+    private final int[] cellCol;
+    private final int[] cellBox;
+    private final int[][] units;
+
+    private final int[] values;
+    private final long[] rows;
+    private final long[] cols;
+    private final long[] boxes;
+    private int givenCount;
+
+    // search trail, see BitboardSolver
+    private final int[] order;
+    private final int[] position;
+    private int open;
+    private int top;
+    private final int[] frameCell;
+    private final long[] frameMask;
+    private final int[] frameTop;
+    private final long[] candidates;
+    private final int[] solution;
+    private boolean propagation;
+    private SplittableRandom random;
+    private long nodeLimit;
+    private long nodes;
+    private AtomicBoolean cancelled;
+
+    public NxNSolver(GridGeometry geometry) {
+        this.geometry = geometry;
+        size = geometry.getSize();
+        cellCount = geometry.getCellCount();
+        allCandidates = geometry.getAllCandidates();
+        cellRow = new int[cellCount];
+        cellCol = new int[cellCount];
+        cellBox = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellRow[cell] = geometry.getRow(cell);
+            cellCol[cell] = geometry.getCol(cell);
+            cellBox[cell] = geometry.getBox(cell);
+        }
+        units = new int[geometry.getUnitCount()][];
+        for (int u = 0; u < units.length; u++) {
+            units[u] = geometry.getUnit(u);
+        }
+        values = new int[cellCount];
+        rows = new long[size];
+        cols = new long[size];
+        boxes = new long[size];
+        order = new int[cellCount];
+        position = new int[cellCount];
+        frameCell = new int[cellCount];
+        frameMask = new long[cellCount];
+        frameTop = new int[cellCount];
+        candidates = new long[cellCount];
+        solution = new int[cellCount];
+        propagation = true;
+    }
+
+    /**
+     * Creates an independent copy of the givens of another solver.
+     */
+    public NxNSolver(NxNSolver other) {
+        this(other.geometry);
+        System.arraycopy(other.values, 0, values, 0, cellCount);
+        System.arraycopy(other.rows, 0, rows, 0, size);
+        System.arraycopy(other.cols, 0, cols, 0, size);
+        System.arraycopy(other.boxes, 0, boxes, 0, size);
+        givenCount = other.givenCount;
+        propagation = other.propagation;
+    }
+
+    public GridGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Switches the naked and hidden single propagation on or off. It is on
+     * by default.
+     */
+    public void setPropagation(boolean propagation) {
+        this.propagation = propagation;
+    }
+
+    public boolean isPropagation() {
+        return propagation;
+    }
+
+    /**
+     * @param random source for the order in which the values of a decision
+     *        are tried, null for ascending order
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * A search stops after this many guesses, see
+     * {@link #isNodeLimitReached()}; 0 for no limit.
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * @return true if the last search was stopped by the node limit, so
+     *         its solution count is only a lower bound
+     */
+    public boolean isNodeLimitReached() {
+        return nodeLimit > 0 && nodes >= nodeLimit;
+    }
+
+    /**
+     * A search polls the flag every few thousand nodes and returns the
+     * solutions found so far once it is set.
+     */
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public void clear() {
+        for (int i = 0; i < cellCount; i++) {
+            values[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            rows[i] = cols[i] = boxes[i] = 0;
+        }
+        givenCount = 0;
+    }
+
+    /**
+     * @param givens one value per cell indexed row*size+col, 0 for an open
+     *        cell
+     * @return false if the givens contradict each other
+     */
+    public boolean load(int[] givens) {
+        if (givens.length != cellCount) {
+            throw new IllegalArgumentException("Grid size incompatible.");
+        }
+        clear();
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (givens[cell] != 0 && !setGiven(cell, givens[cell])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the cell is already given or the value conflicts with
+     *         another given; the state is left unchanged in that case
+     */
+    public boolean setGiven(int cell, int val) {
+        if (val < 1 || val > size) {
+            throw new IllegalArgumentException("Cell value is illegal.");
+        }
+        if (values[cell] != 0 || (getCandidates(cell) & (1L << (val - 1))) == 0) {
+            return false;
+        }
+        place(cell, 1L << (val - 1));
+        givenCount++;
+        return true;
+    }
+
+    public void clearGiven(int cell) {
+        if (values[cell] != 0) {
+            unplace(cell);
+            givenCount--;
+        }
+    }
+
+    public int getGiven(int cell) {
+        return values[cell];
+    }
+
+    public int getGivenCount() {
+        return givenCount;
+    }
+
+    public long getCandidates(int cell) {
+        return allCandidates & ~(rows[cellRow[cell]] | cols[cellCol[cell]] | boxes[cellBox[cell]]);
+    }
+
+    private void place(int cell, long bit) {
+        values[cell] = Long.numberOfTrailingZeros(bit) + 1;
+        rows[cellRow[cell]] |= bit;
+        cols[cellCol[cell]] |= bit;
+        boxes[cellBox[cell]] |= bit;
+    }
+
+    private void unplace(int cell) {
+        long bit = ~(1L << (values[cell] - 1));
+        values[cell] = 0;
+        rows[cellRow[cell]] &= bit;
+        cols[cellCol[cell]] &= bit;
+        boxes[cellBox[cell]] &= bit;
+    }
+
+    /**
+     * Counts the solutions of the loaded givens, stopping as soon as
+     * <code>limit</code> solutions have been found.
+     */
+    public int countSolutions(int limit) {
+        nodes = 0;
+        if (limit <= 0) {
+            return 0;
+        }
+        open = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (values[cell] == 0) {
+                position[cell] = open;
+                order[open++] = cell;
+            }
+        }
+        top = 0;
+
+        int found = 0;
+        int level = -1;
+        boolean consistent = !propagation || propagate();
+        while (true) {
+            if (consistent) {
+                if (top == open) {
+                    if (found++ == 0) {
+                        System.arraycopy(values, 0, solution, 0, cellCount);
+                    }
+                    if (found >= limit) {
+                        break;
+                    }
+                } else {
+                    int cell = selectCell();
+                    level++;
+                    frameTop[level] = top;
+                    frameCell[level] = cell;
+                    frameMask[level] = getCandidates(cell);
+                }
+            }
+            while (level >= 0 && frameMask[level] == 0) {
+                level--;
+            }
+            if (level < 0) {
+                break;
+            }
+            undo(frameTop[level]);
+            long mask = frameMask[level];
+            long bit = random == null ? mask & -mask : randomBit(mask);
+            frameMask[level] = mask & ~bit;
+            assign(frameCell[level], bit);
+            nodes++;
+            if (nodeLimit > 0 && nodes >= nodeLimit) {
+                break;
+            }
+            if (cancelled != null && (nodes & 0xfff) == 0 && cancelled.get()) {
+                break;
+            }
+            consistent = !propagation || propagate();
+        }
+        undo(0);
+        return found;
+    }
+
+    private long randomBit(long mask) {
+        for (int n = random.nextInt(Long.bitCount(mask)); n > 0; n--) {
+            mask &= mask - 1;
+        }
+        return mask & -mask;
+    }
+
+    private void assign(int cell, long bit) {
+        int p = position[cell];
+        int other = order[top];
+        order[p] = other;
+        position[other] = p;
+        order[top] = cell;
+        position[cell] = top;
+        top++;
+        place(cell, bit);
+    }
+
+    private void undo(int mark) {
+        while (top > mark) {
+            unplace(order[--top]);
+        }
+    }
+
+    private int selectCell() {
+        int best = order[top];
+        int bestCount = size + 1;
+        for (int i = top; i < open && bestCount > 1; i++) {
+            int cell = order[i];
+            int count = Long.bitCount(getCandidates(cell));
+            if (count < bestCount) {
+                best = cell;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Naked and hidden singles until neither is found, see
+     * BitboardSolver.propagate(). Returns false on a contradiction.
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = top; i < open; i++) {
+                int cell = order[i];
+                long mask = getCandidates(cell);
+                if (mask == 0) {
+                    return false;
+                }
+                if ((mask & (mask - 1)) == 0) {
+                    assign(cell, mask);
+                    changed = true;
+                }
+                candidates[cell] = mask;
+            }
+            if (changed) {
+                continue;
+            }
+            for (int u = 0; u < units.length; u++) {
+                int[] unit = units[u];
+                long once = 0;
+                long twice = 0;
+                long used = 0;
+                for (int k = 0; k < size; k++) {
+                    int cell = unit[k];
+                    if (values[cell] != 0) {
+                        used |= 1L << (values[cell] - 1);
+                    } else {
+                        long mask = candidates[cell];
+                        twice |= once & mask;
+                        once |= mask;
+                    }
+                }
+                if ((once | used) != allCandidates) {
+                    return false;
+                }
+                long hidden = once & ~twice & ~used;
+                while (hidden != 0) {
+                    long bit = hidden & -hidden;
+                    hidden &= ~bit;
+                    int k = 0;
+                    while (k < size && (values[unit[k]] != 0
+                            || (getCandidates(unit[k]) & bit) == 0)) {
+                        k++;
+                    }
+                    if (k == size) {
+                        return false;
+                    }
+                    assign(unit[k], bit);
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+
+    /**
+     * @param result receives the solution, indexed row*size+col
+     * @return false if the loaded givens have no solution
+     */
+    public boolean solve(int[] result) {
+        if (countSolutions(1) == 0) {
+            return false;
+        }
+        System.arraycopy(solution, 0, result, 0, cellCount);
+        return true;
+    }
+
+    /**
+     * Copies the first solution found by the last search; only meaningful if
+     * that search found at least one.
+     */
+    public void getSolution(int[] result) {
+        System.arraycopy(solution, 0, result, 0, cellCount);
+    }
+
+    /**
+     * @return the number of guesses made by the last search
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+}
@@ -0,0 +1,204 @@
+/* ParallelSolver created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the search of a {@link BitboardSolver} across a {@link ForkJoinPool}.
+ * <p>
+ * A subtask first propagates the naked and hidden singles of its givens,
+ * so dead branches are dropped before they are split. It then expands the
+ * most constrained cell into one subtask per candidate, each owning its own
+ * copy of the solver state, but only while its worker has few queued
+ * subtasks that nobody has stolen yet, at most <code>splitDepth</code>
+ * levels deep and while fewer than a few subtasks per worker are pending;
+ * otherwise it runs the sequential search. Splitting thus
+ * follows the demand of idle workers instead of expanding a fixed number of
+ * levels. Once the solution limit is reached or the flag of the caller is
+ * set all running searches are cancelled cooperatively.
+ */
+public class ParallelSolver {
+
+    // queued subtasks beyond which a worker stops splitting, see
+    // ForkJoinTask.getSurplusQueuedTaskCount()
+    private static final int SURPLUS = 2;
+    // pending subtasks per worker at most, bounding the copying overhead
+    private static final int TASKS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+
+    public ParallelSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelSolver(ForkJoinPool pool) {
+        this(pool, defaultSplitDepth(pool.getParallelism()));
+    }
+
+    public ParallelSolver(ForkJoinPool pool, int splitDepth) {
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException("Split depth must not be negative.");
+        }
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    /*
+     * A bound only, the surplus check decides where to split. A single
+     * worker gains nothing from splitting.
+     */
+    private static int defaultSplitDepth(int parallelism) {
+        if (parallelism <= 1) {
+            return 0;
+        }
+        return 2 + 2 * (32 - Integer.numberOfLeadingZeros(parallelism));
+    }
+
+    /**
+     * Counts the solutions of the givens loaded into <code>base</code>, which
+     * is not modified.
+     */
+    public long countSolutions(BitboardSolver base, long limit) {
+        return countSolutions(base, limit, null);
+    }
+
+    /**
+     * As {@link #countSolutions(BitboardSolver, long)}, returning early once
+     * <code>cancelled</code> is set, with the solutions found so far.
+     *
+     * @param cancelled polled like the flag of
+     *        {@link BitboardSolver#setCancelFlag(AtomicBoolean)}, may be null
+     */
+    public long countSolutions(BitboardSolver base, long limit, AtomicBoolean cancelled) {
+        if (limit <= 0) {
+            return 0;
+        }
+        Search search = new Search(limit, null, maxTasks(), cancelled);
+        pool.invoke(new SolveTask(search, new BitboardSolver(base), 0));
+        return Math.min(search.found.get(), limit);
+    }
+
+    /**
+     * @param result receives a solution of the givens loaded into
+     *        <code>base</code>, indexed x*9+y
+     * @return false if there is no solution
+     */
+    public boolean solve(BitboardSolver base, int[] result) {
+        Search search = new Search(1, result, maxTasks(), null);
+        pool.invoke(new SolveTask(search, new BitboardSolver(base), 0));
+        return search.found.get() > 0;
+    }
+
+    private int maxTasks() {
+        return TASKS_PER_WORKER * pool.getParallelism();
+    }
+
+    // state shared by all subtasks of one search
+    private static class Search {
+        final long limit;
+        final int[] result;
+        final AtomicLong found = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        // the flag of the caller, never set by the search
+        final AtomicBoolean external;
+        final AtomicInteger tasks;
+
+        Search(long limit, int[] result, int maxTasks, AtomicBoolean external) {
+            this.limit = limit;
+            this.result = result;
+            this.external = external;
+            tasks = new AtomicInteger(maxTasks);
+        }
+
+        boolean isCancelled() {
+            return cancelled.get() || external != null && external.get();
+        }
+
+        // takes n subtasks from the budget, or none if fewer are left
+        boolean reserve(int n) {
+            if (tasks.addAndGet(-n) >= 0) {
+                return true;
+            }
+            tasks.addAndGet(n);
+            return false;
+        }
+
+        // returns the budget of n completed subtasks
+        void release(int n) {
+            tasks.addAndGet(n);
+        }
+
+        void add(int n, BitboardSolver solver) {
+            if (n == 0) {
+                return;
+            }
+            long before = found.getAndAdd(n);
+            if (result != null && before == 0) {
+                solver.getSolution(result);
+            }
+            if (before + n >= limit) {
+                cancelled.set(true);
+            }
+        }
+    }
+
+    private class SolveTask extends RecursiveAction {
+
+        // tasks are never serialized
+        private static final long serialVersionUID = 1L;
+
+        private final transient Search search;
+        private final transient BitboardSolver solver;
+        private final int depth;
+
+        SolveTask(Search search, BitboardSolver solver, int depth) {
+            this.search = search;
+            this.solver = solver;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (search.isCancelled() || !solver.propagateSingles()) {
+                return;
+            }
+            int cell = solver.getMostConstrainedCell();
+            if (cell < 0) {
+                search.add(solver.countSolutions(1), solver);
+                return;
+            }
+            int mask = solver.getCandidates(cell);
+            if (depth >= splitDepth || getSurplusQueuedTaskCount() > SURPLUS
+                    || !search.reserve(Integer.bitCount(mask))) {
+                long remaining = search.limit - search.found.get();
+                if (remaining > 0) {
+                    solver.setCancelFlags(search.cancelled, search.external);
+                    int limit = (int) Math.min(remaining, Integer.MAX_VALUE);
+                    search.add(solver.countSolutions(limit), solver);
+                }
+                return;
+            }
+            int n = Integer.bitCount(mask);
+            List<SolveTask> subtasks = new ArrayList<SolveTask>(n);
+            while (mask != 0) {
+                int bit = mask & -mask;
+                mask &= ~bit;
+                BitboardSolver child = new BitboardSolver(solver);
+                child.setGiven(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                subtasks.add(new SolveTask(search, child, depth + 1));
+            }
+            try {
+                invokeAll(subtasks);
+            } finally {
+                search.release(n);
+            }
+        }
+    }
+}
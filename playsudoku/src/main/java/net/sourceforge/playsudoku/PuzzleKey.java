@@ -0,0 +1,120 @@
+/* PuzzleKey created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+/**
+ * Immutable compact key of a grid: the 81 cell values (0 for an open cell)
+ * in index order x*9+y, packed in base 10 into five longs of 18, 18, 18,
+ * 18 and 9 digits. Keys of canonical grids, see {@link Canonicalizer},
+ * identify puzzles up to symmetry; keys compare like the digit strings.
+ */
+public final class PuzzleKey implements Comparable<PuzzleKey> {
+
+    public static final int LONGS = 5;
+
+    private static final int DIGITS_PER_LONG = 18;
+
+    private final long[] words;
+
+    private PuzzleKey(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * @param values 81 cell values from 0 to 9
+     */
+    public static PuzzleKey of(int[] values) {
+        if (values.length != 81) {
+            throw new IllegalArgumentException("A key needs 81 values.");
+        }
+        long[] words = new long[LONGS];
+        for (int i = 0; i < 81; i++) {
+            if (values[i] < 0 || values[i] > 9) {
+                throw new IllegalArgumentException("Cell value is illegal.");
+            }
+            words[i / DIGITS_PER_LONG] = words[i / DIGITS_PER_LONG] * 10 + values[i];
+        }
+        return new PuzzleKey(words);
+    }
+
+    /**
+     * @param s 81 characters, '1'-'9' for values and '0' or '.' for open
+     *        cells
+     */
+    public static PuzzleKey parse(CharSequence s) {
+        int[] values = new int[81];
+        if (s.length() != 81 || !BatchSolver.parse(s, values)) {
+            throw new IllegalArgumentException("Not an 81 character grid: " + s);
+        }
+        return of(values);
+    }
+
+    /**
+     * Rebuilds a key from the words returned by {@link #getWord(int)}.
+     */
+    public static PuzzleKey fromWords(long w0, long w1, long w2, long w3, long w4) {
+        return new PuzzleKey(new long[] {w0, w1, w2, w3, w4});
+    }
+
+    public long getWord(int i) {
+        return words[i];
+    }
+
+    /**
+     * @param values receives the 81 cell values
+     */
+    public void getValues(int[] values) {
+        for (int w = 0; w < LONGS; w++) {
+            long word = words[w];
+            int from = w * DIGITS_PER_LONG;
+            for (int i = Math.min(81, from + DIGITS_PER_LONG) - 1; i >= from; i--) {
+                values[i] = (int) (word % 10);
+                word /= 10;
+            }
+        }
+    }
+
+    @Override
+    public int compareTo(PuzzleKey other) {
+        for (int w = 0; w < LONGS; w++) {
+            int c = Long.compare(words[w], other.words[w]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PuzzleKey)) {
+            return false;
+        }
+        long[] other = ((PuzzleKey) o).words;
+        for (int w = 0; w < LONGS; w++) {
+            if (words[w] != other[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = 0;
+        for (int w = 0; w < LONGS; w++) {
+            h = h * 0x9E3779B97F4A7C15L + words[w];
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        int[] values = new int[81];
+        getValues(values);
+        StringBuilder sb = new StringBuilder(81);
+        for (int v : values) {
+            sb.append((char) ('0' + v));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,321 @@
+/* PuzzleKeySet created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Concurrent set of {@link PuzzleKey}s for deduplicating large generation
+ * runs. The keys are not kept as objects: every key takes the five longs
+ * of its words in an open addressing table with linear probing, so the
+ * memory needed is close to 40 bytes per slot.
+ * <p>
+ * The table is split into segments chosen by the key hash, each with its
+ * own lock, so threads adding keys rarely wait for each other. A set kept
+ * on the heap grows segment by segment; a set backed by a memory mapped
+ * file, see {@link #mapped(Path, long)}, has a fixed capacity and can be
+ * reopened later.
+ */
+public class PuzzleKeySet implements Closeable {
+
+    public static final long MAGIC = 0x53444B4B45595331L; // "SDKKEYS1"
+
+    private static final int SEGMENTS = 64;
+    private static final int HEADER_SIZE = 24;
+    private static final int WORDS = PuzzleKey.LONGS;
+    // set in the last word of every used slot, which holds only 9 digits
+    private static final long USED = Long.MIN_VALUE;
+    // largest number of slots of a segment, which is a single mapping
+    private static final int MAX_SLOTS = Integer.highestOneBit(Integer.MAX_VALUE / (8 * WORDS));
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final FileChannel channel;
+
+    private abstract static class Segment {
+        int slots;
+        int size;
+
+        abstract long get(int i);
+
+        abstract void set(int i, long v);
+
+        /*
+         * Makes room for one more key, at a load factor of 3/4.
+         */
+        abstract void reserve();
+
+        int find(long w0, long w1, long w2, long w3, long w4, long hash) {
+            int mask = slots - 1;
+            int slot = (int) hash & mask;
+            while (true) {
+                int base = slot * WORDS;
+                long last = get(base + 4);
+                if (last == 0) {
+                    return -1 - slot;
+                }
+                if (last == (w4 | USED) && get(base) == w0 && get(base + 1) == w1
+                        && get(base + 2) == w2 && get(base + 3) == w3) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        void insert(int slot, long w0, long w1, long w2, long w3, long w4) {
+            int base = slot * WORDS;
+            set(base, w0);
+            set(base + 1, w1);
+            set(base + 2, w2);
+            set(base + 3, w3);
+            set(base + 4, w4 | USED);
+            size++;
+        }
+    }
+
+    private static final class HeapSegment extends Segment {
+        long[] table;
+
+        HeapSegment(int slots) {
+            this.slots = slots;
+            table = new long[slots * WORDS];
+        }
+
+        @Override
+        long get(int i) {
+            return table[i];
+        }
+
+        @Override
+        void set(int i, long v) {
+            table[i] = v;
+        }
+
+        @Override
+        void reserve() {
+            if ((size + 1) * 4L <= slots * 3L) {
+                return;
+            }
+            if (slots >= MAX_SLOTS) {
+                throw new IllegalStateException("Puzzle key set segment is full.");
+            }
+            long[] old = table;
+            slots *= 2;
+            size = 0;
+            table = new long[slots * WORDS];
+            for (int base = 0; base < old.length; base += WORDS) {
+                if (old[base + 4] != 0) {
+                    long w4 = old[base + 4] & ~USED;
+                    long hash = hash(old[base], old[base + 1], old[base + 2], old[base + 3], w4);
+                    int slot = find(old[base], old[base + 1], old[base + 2], old[base + 3], w4, hash);
+                    insert(-1 - slot, old[base], old[base + 1], old[base + 2], old[base + 3], w4);
+                }
+            }
+        }
+    }
+
+    private static final class MappedSegment extends Segment {
+        final MappedByteBuffer buffer;
+        final LongBuffer table;
+
+        MappedSegment(MappedByteBuffer buffer, int slots) {
+            this.slots = slots;
+            this.buffer = buffer;
+            table = buffer.asLongBuffer();
+            for (int base = 0; base < slots * WORDS; base += WORDS) {
+                if (table.get(base + 4) != 0) {
+                    size++;
+                }
+            }
+        }
+
+        @Override
+        long get(int i) {
+            return table.get(i);
+        }
+
+        @Override
+        void set(int i, long v) {
+            table.put(i, v);
+        }
+
+        @Override
+        void reserve() {
+            if ((size + 1) * 4L > slots * 3L) {
+                throw new IllegalStateException("Puzzle key set file is full.");
+            }
+        }
+    }
+
+    public PuzzleKeySet() {
+        this(1 << 16);
+    }
+
+    /**
+     * @param expected number of keys to size the table for; the set grows
+     *        beyond it if needed
+     */
+    public PuzzleKeySet(long expected) {
+        int slots = segmentSlots(expected);
+        for (int s = 0; s < SEGMENTS; s++) {
+            segments[s] = new HeapSegment(slots);
+        }
+        channel = null;
+    }
+
+    private PuzzleKeySet(FileChannel channel, int slots) throws IOException {
+        this.channel = channel;
+        long bytes = (long) slots * WORDS * 8;
+        for (int s = 0; s < SEGMENTS; s++) {
+            segments[s] = new MappedSegment(channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + s * bytes, bytes), slots);
+        }
+    }
+
+    /**
+     * Opens a set kept in a memory mapped file, creating the file if it
+     * does not exist. The capacity of an existing file is kept.
+     *
+     * @param capacity number of keys the new file must hold
+     * @throws IllegalStateException from {@link #add(PuzzleKey)} once the
+     *         capacity is exhausted
+     */
+    public static PuzzleKeySet mapped(Path file, long capacity) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            int slots;
+            if (channel.size() == 0) {
+                // leave room for segments filling faster than the average
+                slots = segmentSlots(capacity + capacity / 16 + 1024);
+                header.putLong(MAGIC).putInt(SEGMENTS).putInt(slots).putLong(0).flip();
+                channel.write(header, 0);
+            } else {
+                while (header.hasRemaining()) {
+                    if (channel.read(header, header.position()) < 0) {
+                        break;
+                    }
+                }
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC
+                        || header.getInt() != SEGMENTS) {
+                    throw new IOException("Not a puzzle key set file: " + file);
+                }
+                slots = header.getInt();
+                if (slots <= 0 || slots > MAX_SLOTS || Integer.bitCount(slots) != 1) {
+                    throw new IOException("Corrupt puzzle key set file: " + file);
+                }
+            }
+            return new PuzzleKeySet(channel, slots);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // power of two slots per segment for the expected number of keys
+    private static int segmentSlots(long expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("Negative capacity.");
+        }
+        long slots = Math.max(16, (expected * 4 / 3 + SEGMENTS) / SEGMENTS);
+        if (slots > MAX_SLOTS) {
+            throw new IllegalArgumentException("Capacity too large.");
+        }
+        return Integer.highestOneBit((int) slots - 1) << 1;
+    }
+
+    private static long hash(long w0, long w1, long w2, long w3, long w4) {
+        long h = w0;
+        h = (h ^ (h >>> 29)) * 0x9E3779B97F4A7C15L + w1;
+        h = (h ^ (h >>> 29)) * 0x9E3779B97F4A7C15L + w2;
+        h = (h ^ (h >>> 29)) * 0x9E3779B97F4A7C15L + w3;
+        h = (h ^ (h >>> 29)) * 0x9E3779B97F4A7C15L + w4;
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * @return <code>true</code> if the key was not yet in the set
+     */
+    public boolean add(PuzzleKey key) {
+        long w0 = key.getWord(0), w1 = key.getWord(1), w2 = key.getWord(2);
+        long w3 = key.getWord(3), w4 = key.getWord(4);
+        long hash = hash(w0, w1, w2, w3, w4);
+        Segment segment = segments[(int) (hash >>> 58)];
+        synchronized (segment) {
+            int slot = segment.find(w0, w1, w2, w3, w4, hash);
+            if (slot >= 0) {
+                return false;
+            }
+            int slots = segment.slots;
+            segment.reserve();
+            if (segment.slots != slots) {
+                slot = segment.find(w0, w1, w2, w3, w4, hash);
+            }
+            segment.insert(-1 - slot, w0, w1, w2, w3, w4);
+            return true;
+        }
+    }
+
+    public boolean contains(PuzzleKey key) {
+        long w0 = key.getWord(0), w1 = key.getWord(1), w2 = key.getWord(2);
+        long w3 = key.getWord(3), w4 = key.getWord(4);
+        long hash = hash(w0, w1, w2, w3, w4);
+        Segment segment = segments[(int) (hash >>> 58)];
+        synchronized (segment) {
+            return segment.find(w0, w1, w2, w3, w4, hash) >= 0;
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the bytes taken by the tables of all segments
+     */
+    public long tableBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += (long) segment.slots * WORDS * 8;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the mapped file back to disk; does nothing for a set on the
+     * heap.
+     */
+    public void force() {
+        if (channel != null) {
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    ((MappedSegment) segment).buffer.force();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+    }
+}
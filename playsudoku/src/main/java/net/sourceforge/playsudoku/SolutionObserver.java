@@ -0,0 +1,12 @@
+/* SolutionObserver created on 18.10.2026 */
+package net.sourceforge.playsudoku;
+
+public interface SolutionObserver {
+
+    /**
+     * @param values the 81 cell values of the solution, indexed x*9+y; the
+     *        array is reused by the solver and must be copied to be kept
+     * @return false to stop the enumeration
+     */
+    public boolean solutionFound(int[] values);
+}
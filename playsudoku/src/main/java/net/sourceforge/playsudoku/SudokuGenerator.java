@@ -1,17 +1,52 @@
 /* GridGenerator created on 30.01.2006 */
 package net.sourceforge.playsudoku;
 
-import java.util.EmptyStackException;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.Stack;
 
+import net.sourceforge.playsudoku.GV.GridSource;
 import net.sourceforge.playsudoku.GV.NumDistributuon;
+import net.sourceforge.playsudoku.GV.SearchOrder;
+import net.sourceforge.playsudoku.GV.Solver;
+import net.sourceforge.playsudoku.GV.Symmetry;
+import net.sourceforge.playsudoku.GV.Technique;
+import net.sourceforge.playsudoku.GV.TieBreak;
 
 public class SudokuGenerator {
 
+    // improving steps per grid of generateMinimalPuzzle(int, int)
+    private static final int MINIMAL_STEPS = 200;
+    // values generatePatternPuzzle() tries per attempt
+    private static final int PATTERN_NODES = 2000;
+    
+    // cell orbits of every Symmetry, indexed by ordinal
+    private static final int[][][] ORBITS = new int[Symmetry.values().length][][];
+    
+    static {
+        for(Symmetry symmetry : Symmetry.values()) {
+            ORBITS[symmetry.ordinal()] = computeOrbits(symmetry);
+        }
+    }
+
     private SudokuGrid grid;
-    private Stack st;
-    private Random random;
+    // search trail: cell index x*9+y and the candidates not yet tried there
+    private int[] trailCell;
+    private int[] trailMask;
+    private SplittableRandom random;
+    private Solver solver;
+    private GridSource gridSource;
+    private GridTransformer transformer;
+    private DancingLinksSolver dlx;
+    private BitboardSolver counter;
+    private ParallelSolver parallelSolver;
+    private DifficultyRater rater;
+    private MinimalPuzzleGenerator minimizer;
+    private long nodes;
+    private AtomicBoolean cancelled;
     
     public SudokuGenerator() {
         this(new SudokuGrid());
@@ -19,14 +54,103 @@ public class SudokuGenerator {
     
     public SudokuGenerator(SudokuGrid grid) {
         this.grid = grid;
-        st = new Stack();
-        random = new Random();
+        trailCell = new int[81];
+        trailMask = new int[81];
+        random = new SplittableRandom();
+        solver = Solver.backtracking;
+        gridSource = GridSource.backtracking;
+    }
+
+    /**
+     * A generator that reproduces the same grids and puzzles for the same
+     * seed and calls, see {@link #setSeed(long)}.
+     */
+    public SudokuGenerator(long seed) {
+        this(new SudokuGrid());
+        random = new SplittableRandom(seed);
+        grid.setRandom(random.split());
+    }
+
+    /**
+     * Restarts the random streams of the generator and its grid from the
+     * seed, so a seed and the parameters of the following calls identify a
+     * puzzle. The parallel solver finds whichever solution comes first and
+     * is not reproducible.
+     */
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+        grid.setRandom(random.split());
+    }
+
+    /**
+     * @return a generator with a new grid, the same solver and an
+     *         independent random stream split off this one, for another
+     *         worker thread
+     */
+    public SudokuGenerator split() {
+        SudokuGenerator other = new SudokuGenerator(new SudokuGrid());
+        other.random = random.split();
+        other.grid.setRandom(other.random.split());
+        other.solver = solver;
+        other.gridSource = gridSource;
+        return other;
     }
 
     public SudokuGrid getGrid() {
         return this.grid;
     }
 
+    public Solver getSolver() {
+        return solver;
+    }
+
+    public void setSolver(Solver solver) {
+        this.solver = solver;
+    }
+
+    public GridSource getGridSource() {
+        return gridSource;
+    }
+
+    /**
+     * Selects how generateGrid() fills the grid: a randomized search from
+     * scratch, which can reach every grid, or a random symmetry transform
+     * of a seed grid, which is much faster, see {@link GridTransformer}.
+     */
+    public void setGridSource(GridSource gridSource) {
+        this.gridSource = gridSource;
+    }
+
+    /**
+     * Selects the cell ordering of the backtracking solver, see
+     * {@link SudokuGrid#setSearchOrder(SearchOrder, TieBreak)}.
+     */
+    public void setSearchOrder(SearchOrder searchOrder, TieBreak tieBreak) {
+        grid.setSearchOrder(searchOrder, tieBreak);
+    }
+
+    /**
+     * Once the flag is set, the puzzle generating methods stop between
+     * their digging steps and the uniqueness checks stop within a few
+     * thousand nodes, see {@link BitboardSolver#setCancelFlag(AtomicBoolean)}.
+     * The grid of a cancelled call is no valid puzzle.
+     */
+    public void setCancelFlag(AtomicBoolean cancelled) {
+        this.cancelled = cancelled;
+        getCounter().setCancelFlag(cancelled);
+    }
+    
+    public boolean isCancelled() {
+        return cancelled != null && cancelled.get();
+    }
+
+    /**
+     * @return the number of trial assignments made by the last solveGrid()
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
     /*
      * This method was created to replace occurrences of
      * Stack.clear() in the application.  For JavaFX mobile,
@@ -41,51 +165,191 @@ public class SudokuGenerator {
 
     //RETURN BOOLEAN ??? TODO
     public boolean solveGrid() {
-        //st.clear();
-        clearStack(st);
-        GeneratorMove m = grid.getFirstMove();
-        if(m != null) {
-            grid.setGridVal(m.getX(),m.getY(),m.getVal());
-            st.push(m);
-            return solveGridIterative(m);
+        // observers see the solution, not every trial assignment
+        grid.beginUpdate();
+        try {
+            return solve();
+        } finally {
+            grid.endUpdate();
         }
-        return true;
     }
-
-    private boolean solveGridIterative(GeneratorMove m) {
-        int x = m.getX(); 
-        int y = m.getY();
+    
+    private boolean solve() {
+        if(solver == Solver.dancingLinks) {
+            if(dlx == null) {
+                dlx = new DancingLinksSolver();
+            }
+            boolean solved = dlx.solve(grid);
+            nodes = dlx.getNodeCount();
+            return solved;
+        }
+        if(solver == Solver.parallel) {
+            return solveGridParallel();
+        }
+        if(solver == Solver.propagation) {
+            return solveGridPropagation();
+        }
+        nodes = 0;
+        clearOpenCells();
         if(!grid.isGridValid()) {
             return false;
         }
-
-        while(!grid.isGridSolved()) {
-
-            GeneratorMove next = grid.getNextMove(x,y);
-            if(next != null) {
-                grid.setGridVal(next.getX(),next.getY(),next.getVal());
-                st.push(next);
-                y = next.getY();
-                x = next.getX();
-            } else {
-                try{
-                    next = (GeneratorMove)st.pop();
-                    while(next.setNextMove() == false) {
-                        grid.setGridVal(next.getX(),next.getY(),0);
-                        next = (GeneratorMove)st.pop();
-                    }
-                    grid.setGridVal(next.getX(),next.getY(),next.getVal());
-                    st.push(next);
-                    y = next.getY();
-                    x = next.getX();
-                } catch (EmptyStackException e) {
+        
+        int cell = grid.getNextCell(-1,0);
+        if(cell < 0) {
+            return grid.isGridSolved();
+        }
+        int depth = 0;
+        trailCell[0] = cell;
+        trailMask[0] = grid.getCandidateMask(cell / 9, cell % 9);
+        
+        while(true) {
+            cell = trailCell[depth];
+            int x = cell / 9;
+            int y = cell % 9;
+            int mask = trailMask[depth];
+            if(mask == 0) { //backtrack
+                grid.setGridVal(x,y,0);
+                if(--depth < 0) {
                     return false;
-                } 
+                }
+                continue;
+            }
+            int bit = pickCandidate(mask);
+            trailMask[depth] = mask & ~bit;
+            nodes++;
+            grid.setGridVal(x,y,Integer.numberOfTrailingZeros(bit) + 1);
+            if(grid.isGridSolved()) {
+                return true;
             }
-        } 
+            
+            int next = grid.getNextCell(x,y);
+            if(next >= 0) {
+                depth++;
+                trailCell[depth] = next;
+                trailMask[depth] = grid.getCandidateMask(next / 9, next % 9);
+            }
+        }
+    }
+    
+    private boolean solveGridParallel() {
+        BitboardSolver base = getCounter();
+        int[] solution = new int[81];
+        nodes = 0;
+        if(!base.load(grid) || !getParallelSolver().solve(base, solution)) {
+            return false;
+        }
+        writeSolution(solution);
+        return true;
+    }
+    
+    /*
+     * Singles are filled in before every guess, so published puzzles
+     * mostly solve without any trial assignment.
+     */
+    private boolean solveGridPropagation() {
+        BitboardSolver bs = getCounter();
+        int[] solution = new int[81];
+        nodes = 0;
+        if(!bs.load(grid)) {
+            return false;
+        }
+        boolean solved = bs.solve(solution);
+        nodes = bs.getNodeCount();
+        if(!solved) {
+            return false;
+        }
+        writeSolution(solution);
         return true;
     }
     
+    private void writeSolution(int[] solution) {
+        for(int i = 0; i < 9; i++) {
+            for(int j = 0; j < 9; j++) {
+                if(!grid.isDefault(j,i)) {
+                    grid.setGridVal(j,i,solution[CandidateEngine.cellIndex(j,i)]);
+                }
+            }
+        }
+    }
+    
+    private BitboardSolver getCounter() {
+        if(counter == null) {
+            counter = new BitboardSolver();
+        }
+        return counter;
+    }
+    
+    private ParallelSolver getParallelSolver() {
+        if(parallelSolver == null) {
+            parallelSolver = new ParallelSolver();
+        }
+        return parallelSolver;
+    }
+    
+    /*
+     * Picks one of the candidate bits at random, the equivalent of trying
+     * the shuffled values of getAvailabeValuesField() in order.
+     */
+    private int pickCandidate(int mask) {
+        int n = random.nextInt(Integer.bitCount(mask));
+        while(n-- > 0) {
+            mask &= mask - 1;
+        }
+        return Integer.lowestOneBit(mask);
+    }
+    
+    /*
+     * Open cells are recognized by their empty grid value, so values left
+     * over from an earlier solution are removed before searching. This is
+     * done in every search order: the backtracking solver always solves
+     * the default cells alone, and the user entries in editable cells are
+     * wiped. Before, row-major searches kept such values as constraints
+     * for the cells before them, so one wrong entry made solveGrid() fail.
+     */
+    private void clearOpenCells() {
+        for(int i = 0; i < 9; i++) {
+            for(int j = 0; j < 9; j++) {
+                if(!grid.isDefault(j,i)) {
+                    grid.setGridVal(j,i,0);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Counts the solutions of the puzzle formed by the default cells,
+     * stopping early once <code>limit</code> solutions are found. The grid
+     * itself is not modified. With {@link Solver#parallel} the search is
+     * split across the cores of the common fork/join pool. Both stop early
+     * once the cancel flag is set.
+     */
+    public int countSolutions(int limit) {
+        BitboardSolver counter = getCounter();
+        if(!counter.load(grid)) {
+            return 0;
+        }
+        if(solver == Solver.parallel) {
+            return (int) getParallelSolver().countSolutions(counter, limit, cancelled);
+        }
+        return counter.countSolutions(limit);
+    }
+    
+    public boolean hasUniqueSolution() {
+        return countSolutions(2) == 1;
+    }
+    
+    /**
+     * Rates the default cells of the grid by the hardest human technique
+     * needed to solve them, see {@link DifficultyRater}.
+     */
+    public Technique ratePuzzle() {
+        if(rater == null) {
+            rater = new DifficultyRater();
+        }
+        return rater.rate(grid);
+    }
+    
     public boolean solvePuzzle() {
         
         if(!grid.isGridSolved()) {
@@ -96,23 +360,53 @@ public class SudokuGenerator {
     }
     
     private void showSolution() {
-        for(int i = 0; i < 9; i++) {
-            for(int j = 0; j < 9; j++) {
-                grid.setEditable(j,i,true);
-                grid.deleteAllNotes(j,i);
-                grid.setPuzzleVal(j,i,0);
-                grid.setPuzzleVal(j,i,grid.getGridVal(j,i));
-                grid.setEditable(j,i,false);
+        grid.beginUpdate();
+        try {
+            for(int i = 0; i < 9; i++) {
+                for(int j = 0; j < 9; j++) {
+                    grid.setEditable(j,i,true);
+                    grid.deleteAllNotes(j,i);
+                    grid.setPuzzleVal(j,i,0);
+                    grid.setPuzzleVal(j,i,grid.getGridVal(j,i));
+                    grid.setEditable(j,i,false);
+                }
             }
+        } finally {
+            grid.endUpdate();
         }
     }
     
     public void generateGrid() {
-        generateFirst9Moves();
-        solveGrid();
+        grid.beginUpdate();
+        try {
+            // cells left default by a previous puzzle would be kept
+            grid.resetGrid();
+            if(gridSource == GridSource.transform) {
+                transformGrid();
+            } else {
+                generateFirst9Moves();
+                solveGrid();
+                for(int i = 0; i < 9; i++) {
+                    grid.setEditable(0,i,true);
+                    grid.setDefault(0,i,false);
+                }
+            }
+        } finally {
+            grid.endUpdate();
+        }
+    }
+    
+    private void transformGrid() {
+        if(transformer == null) {
+            transformer = new GridTransformer();
+        }
+        int[] values = new int[81];
+        transformer.nextGrid(random, values);
+        nodes = 0;
         for(int i = 0; i < 9; i++) {
-            grid.setEditable(0,i,true);
-            grid.setDefault(0,i,false);
+            for(int j = 0; j < 9; j++) {
+                grid.setGridVal(j,i,values[CandidateEngine.cellIndex(j,i)]);
+            }
         }
     }
     
@@ -131,6 +425,15 @@ public class SudokuGenerator {
     }
 
     public void generatePuzzle(int openFields, NumDistributuon nD) {
+        grid.beginUpdate();
+        try {
+            digPuzzle(openFields, nD);
+        } finally {
+            grid.endUpdate();
+        }
+    }
+    
+    private void digPuzzle(int openFields, NumDistributuon nD) {
         generateGrid();
 
         int[] count = new int[9];
@@ -168,6 +471,402 @@ public class SudokuGenerator {
         count = null;
     }
     
+    /**
+     * Generates a puzzle with a unique solution by digging: starting from a
+     * full grid, the cells are visited once each in random order and a
+     * cell is removed only if the remaining givens still have a single
+     * solution, until <code>hints</code> givens are left. The uniqueness
+     * checks reuse one {@link BitboardSolver} whose givens are cleared and
+     * restored cell by cell, and at most 81 checks are made.
+     * <p>
+     * With {@link NumDistributuon#evenlyFilled3x3Square3} or
+     * {@link NumDistributuon#evenlyDistributedNumbers} no square, or no
+     * number, keeps fewer than hints/9 givens.
+     *
+     * @return the number of givens left, more than <code>hints</code> if no
+     *         further cell could be removed
+     */
+    public int generateUniquePuzzle(int hints, NumDistributuon nD) {
+        grid.beginUpdate();
+        try {
+            return digUniquePuzzle(hints, nD);
+        } finally {
+            grid.endUpdate();
+        }
+    }
+    
+    private int digUniquePuzzle(int hints, NumDistributuon nD) {
+        if(isCancelled()) return 0;
+        generateGrid();
+        int[] solution = readGrid();
+        BitboardSolver bs = getCounter();
+        bs.load(solution);
+        
+        int[] cells = new int[81];
+        for(int i = 0; i < 81; i++) {
+            cells[i] = i;
+        }
+        shuffle(cells);
+        
+        // givens left per square or per number
+        int[] count = new int[9];
+        for(int i = 0; i < 9; i++) {
+            count[i] = 9;
+        }
+        int min = hints / 9;
+        for(int i = 0; i < 81 && bs.getGivenCount() > hints; i++) {
+            if(isCancelled()) break;
+            int cell = cells[i];
+            int group = -1;
+            if(nD == NumDistributuon.evenlyFilled3x3Square3) {
+                group = CandidateEngine.CELL_SQUARE[cell];
+            } else if(nD == NumDistributuon.evenlyDistributedNumbers) {
+                group = solution[cell] - 1;
+            }
+            if(group >= 0 && count[group] <= min) continue;
+            
+            bs.clearGiven(cell);
+            if(bs.countSolutions(2) == 1) {
+                if(group >= 0) count[group]--;
+            } else {
+                bs.setGiven(cell, solution[cell]);
+            }
+        }
+        showGivens(bs);
+        return bs.getGivenCount();
+    }
+    
+    /**
+     * Generates a puzzle with a unique solution whose givens are symmetric:
+     * the cells are dug like in {@link #generateUniquePuzzle(int, NumDistributuon)},
+     * but a whole orbit of the symmetry at a time, and an orbit is only
+     * removed if that leaves at least <code>hints</code> givens. Removals
+     * leaving a clue pattern that cannot be unique, see
+     * {@link #isPatternFeasible(BitSet)}, are rejected without a search.
+     *
+     * @return the number of givens left
+     */
+    public int generateSymmetricPuzzle(int hints, Symmetry symmetry) {
+        grid.beginUpdate();
+        try {
+            return digSymmetricPuzzle(hints, symmetry);
+        } finally {
+            grid.endUpdate();
+        }
+    }
+    
+    private int digSymmetricPuzzle(int hints, Symmetry symmetry) {
+        if(isCancelled()) return 0;
+        generateGrid();
+        int[] solution = readGrid();
+        BitboardSolver bs = getCounter();
+        bs.load(solution);
+        
+        int[][] orbits = ORBITS[symmetry.ordinal()];
+        int[] order = new int[orbits.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        shuffle(order);
+        
+        // givens as one 9 bit mask per row and per column
+        int[] rows = new int[9];
+        int[] cols = new int[9];
+        for(int i = 0; i < 9; i++) {
+            rows[i] = cols[i] = 0x1ff;
+        }
+        for(int i = 0; i < order.length && bs.getGivenCount() > hints; i++) {
+            if(isCancelled()) break;
+            int[] orbit = orbits[order[i]];
+            if(bs.getGivenCount() - orbit.length < hints) continue;
+            
+            for(int cell : orbit) {
+                bs.clearGiven(cell);
+                rows[cell / 9] &= ~(1 << (cell % 9));
+                cols[cell % 9] &= ~(1 << (cell / 9));
+            }
+            if(!isFeasible(rows, cols) || bs.countSolutions(2) != 1) {
+                for(int cell : orbit) {
+                    bs.setGiven(cell, solution[cell]);
+                    rows[cell / 9] |= 1 << (cell % 9);
+                    cols[cell % 9] |= 1 << (cell / 9);
+                }
+            }
+        }
+        showGivens(bs);
+        return bs.getGivenCount();
+    }
+    
+    /**
+     * Fills the cells of the pattern with values until they alone have a
+     * unique solution and keeps them as the givens. Patterns that can never
+     * be unique, see {@link #isPatternFeasible(BitSet)}, fail at once.
+     * <p>
+     * Only the pattern cells are searched, with the solutions counted after
+     * every value: a value that leaves no solution is taken back, several
+     * solutions lead on to the next pattern cell, and the first unique
+     * solution is kept, its remaining pattern cells becoming givens too.
+     * An attempt ends after <code>PATTERN_NODES</code> values and starts
+     * over with new random values. Five attempts fill about three in four
+     * random patterns of 24 cells with 180 degree symmetry, in some 100
+     * ms, and one in four of 22 cells; the others may have no unique
+     * puzzle at all.
+     *
+     * @param pattern the cells to give, bit x*9+y for cell (x,y)
+     * @param attempts the number of searches to start at most
+     * @return false if no search found a unique puzzle; the grid is left
+     *         unchanged in that case
+     */
+    public boolean generatePatternPuzzle(BitSet pattern, int attempts) {
+        if(!isPatternFeasible(pattern)) {
+            return false;
+        }
+        int[] cells = pattern.stream().toArray();
+        int[] solution = new int[81];
+        int[] budget = new int[1];
+        BitboardSolver bs = getCounter();
+        for(int n = 0; n < attempts && !isCancelled(); n++) {
+            bs.clear();
+            budget[0] = PATTERN_NODES;
+            if(fillPattern(bs, cells, 0, budget, solution)) {
+                int[] puzzle = new int[81];
+                for(int cell : cells) {
+                    puzzle[cell] = solution[cell];
+                }
+                showPuzzle(solution, puzzle);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /*
+     * Assigns values to cells[from] and the following pattern cells until
+     * the givens of bs have a unique solution, which is then copied into
+     * solution. The open pattern cell with the fewest candidates comes
+     * next, its values in random order. budget[0] is the number of values
+     * left to try.
+     */
+    private boolean fillPattern(BitboardSolver bs, int[] cells, int from, int[] budget, int[] solution) {
+        int count = bs.countSolutions(2);
+        if(count == 0) return false;
+        if(count == 1) {
+            bs.getSolution(solution);
+            return true;
+        }
+        if(from == cells.length || isCancelled()) return false;
+        
+        int best = from;
+        int bestCount = 10;
+        for(int i = from; i < cells.length; i++) {
+            int c = Integer.bitCount(bs.getCandidates(cells[i]));
+            if(c < bestCount) {
+                best = i;
+                bestCount = c;
+            }
+        }
+        int cell = cells[best];
+        cells[best] = cells[from];
+        cells[from] = cell;
+        
+        int[] values = new int[bestCount];
+        int mask = bs.getCandidates(cell);
+        for(int i = 0; mask != 0; i++) {
+            values[i] = Integer.numberOfTrailingZeros(mask) + 1;
+            mask &= mask - 1;
+        }
+        shuffle(values);
+        for(int v : values) {
+            if(--budget[0] < 0) return false;
+            bs.setGiven(cell, v);
+            if(fillPattern(bs, cells, from + 1, budget, solution)) return true;
+            bs.clearGiven(cell);
+        }
+        return false;
+    }
+    
+    /**
+     * As {@link #generateMinimalPuzzle(int, int, int)} with
+     * <code>MINIMAL_STEPS</code> steps per grid.
+     */
+    public int generateMinimalPuzzle(int maxHints, int attempts) {
+        return generateMinimalPuzzle(maxHints, attempts, MINIMAL_STEPS);
+    }
+    
+    /**
+     * Generates a minimal puzzle, from which no given can be removed, with
+     * at most <code>maxHints</code> givens if possible. Every attempt digs
+     * a new grid down to a minimal puzzle and walks from it to smaller
+     * minimal puzzles of the same solution, see
+     * {@link MinimalPuzzleGenerator#improve(int[], int[], SplittableRandom, int, int, int[])},
+     * until the target is reached; the puzzle with the fewest givens is
+     * kept. With 200 steps a grid mostly ends at 20 or 21 givens; 19 and
+     * below need many attempts, and fewer than 17 are never reached.
+     *
+     * @param attempts the number of grids to try at most
+     * @param steps the number of improving steps per grid
+     * @return the number of givens of the puzzle kept
+     */
+    public int generateMinimalPuzzle(int maxHints, int attempts, int steps) {
+        if(minimizer == null) {
+            minimizer = new MinimalPuzzleGenerator();
+        }
+        minimizer.setCancelFlag(cancelled);
+        grid.beginUpdate();
+        try {
+            int[] best = null;
+            int[] bestSolution = null;
+            int bestHints = 82;
+            int[] puzzle = new int[81];
+            for(int n = 0; n < attempts && bestHints > maxHints && !isCancelled(); n++) {
+                generateGrid();
+                int[] solution = readGrid();
+                minimizer.minimize(solution, random, puzzle);
+                int hints = minimizer.improve(solution, puzzle, random, steps, maxHints, puzzle);
+                if(hints < bestHints) {
+                    best = puzzle.clone();
+                    bestSolution = solution;
+                    bestHints = hints;
+                }
+            }
+            if(best == null) {
+                return 0;
+            }
+            showPuzzle(bestSolution, best);
+            return bestHints;
+        } finally {
+            grid.endUpdate();
+        }
+    }
+    
+    /**
+     * @return false if no puzzle with givens in exactly these cells can
+     *         have a unique solution: it has fewer than 17 givens, or two
+     *         rows of a band or two columns of a stack are empty, which
+     *         lets any solution swap them
+     */
+    public static boolean isPatternFeasible(BitSet pattern) {
+        if(pattern.length() > 81) {
+            throw new IllegalArgumentException("Pattern is illegal.");
+        }
+        int[] rows = new int[9];
+        int[] cols = new int[9];
+        for(int cell = pattern.nextSetBit(0); cell >= 0; cell = pattern.nextSetBit(cell + 1)) {
+            rows[cell / 9] |= 1 << (cell % 9);
+            cols[cell % 9] |= 1 << (cell / 9);
+        }
+        return isFeasible(rows, cols);
+    }
+    
+    private static boolean isFeasible(int[] rows, int[] cols) {
+        int givens = 0;
+        for(int i = 0; i < 9; i++) {
+            givens += Integer.bitCount(rows[i]);
+        }
+        if(givens < 17) {
+            return false;
+        }
+        for(int b = 0; b < 9; b += 3) {
+            int emptyRows = 0, emptyCols = 0;
+            for(int k = b; k < b + 3; k++) {
+                if(rows[k] == 0) emptyRows++;
+                if(cols[k] == 0) emptyCols++;
+            }
+            if(emptyRows > 1 || emptyCols > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /*
+     * The orbits of the cells under the symmetry, each cell x*9+y in
+     * exactly one orbit.
+     */
+    private static int[][] computeOrbits(Symmetry symmetry) {
+        boolean[] done = new boolean[81];
+        int[] orbit = new int[4];
+        ArrayList<int[]> list = new ArrayList<int[]>();
+        for(int cell = 0; cell < 81; cell++) {
+            if(done[cell]) continue;
+            int n = 0;
+            for(int c = cell; !done[c]; c = mapCell(symmetry, c)) {
+                done[c] = true;
+                orbit[n++] = c;
+            }
+            list.add(Arrays.copyOf(orbit, n));
+        }
+        return list.toArray(new int[list.size()][]);
+    }
+    
+    private static int mapCell(Symmetry symmetry, int cell) {
+        int x = cell / 9;
+        int y = cell % 9;
+        switch (symmetry) {
+        case rotational180: return (8 - x) * 9 + 8 - y;
+        case rotational90: return y * 9 + 8 - x;
+        case diagonal: return y * 9 + x;
+        case mirror: return x * 9 + 8 - y;
+        default: return cell;
+        }
+    }
+    
+    // values of the grid indexed x*9+y
+    private int[] readGrid() {
+        int[] values = new int[81];
+        for(int x = 0; x < 9; x++) {
+            for(int y = 0; y < 9; y++) {
+                values[CandidateEngine.cellIndex(x,y)] = grid.getGridVal(x,y);
+            }
+        }
+        return values;
+    }
+    
+    private void shuffle(int[] a) {
+        for(int i = a.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+    
+    /*
+     * Makes the givens of the solver the default cells of the full grid
+     * and clears all other cells.
+     */
+    private void showGivens(BitboardSolver bs) {
+        for(int x = 0; x < 9; x++) {
+            for(int y = 0; y < 9; y++) {
+                if(bs.getGiven(CandidateEngine.cellIndex(x,y)) != 0) {
+                    grid.setDefault(x,y,true);
+                }
+            }
+        }
+        grid.clearNonDefaultCells();
+    }
+    
+    /*
+     * Loads the solution into the grid and keeps the cells given in the
+     * puzzle as the default cells.
+     */
+    private void showPuzzle(int[] solution, int[] puzzle) {
+        grid.beginUpdate();
+        try {
+            grid.resetGrid();
+            for(int x = 0; x < 9; x++) {
+                for(int y = 0; y < 9; y++) {
+                    int cell = CandidateEngine.cellIndex(x,y);
+                    grid.setGridVal(x,y,solution[cell]);
+                    grid.setDefault(x,y,puzzle[cell] != 0);
+                }
+            }
+            grid.clearNonDefaultCells();
+        } finally {
+            grid.endUpdate();
+        }
+    }
+    
     private boolean allHaveMinCount(int[] count,int min) {
         for (int i = 0; i < count.length; i++) {
             if(count[i] < min) return false;
@@ -2,8 +2,11 @@
 package net.sourceforge.playsudoku;
 
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.BitSet;
+import java.util.SplittableRandom;
 
+import net.sourceforge.playsudoku.GV.SearchOrder;
+import net.sourceforge.playsudoku.GV.TieBreak;
 import net.sourceforge.playsudoku.io.SerGrid;
 
 public class SudokuGrid {
@@ -23,12 +26,21 @@ public class SudokuGrid {
     
     private ArrayList<SudokuObserver> observers;
     private boolean hasChanged;
+    // open beginUpdate() calls and the cells x*9+y changed since the first
+    private int batchDepth;
+    private long changedLow;
+    private long changedHigh;
 
     private int[] vertical;
     private int[] horizontal;
     private int[] square;
     
-    private Random r;
+    private CandidateEngine candidates;
+    
+    private SearchOrder searchOrder;
+    private TieBreak tieBreak;
+    
+    private SplittableRandom r;
     
     public SudokuGrid () {
         grid = new int[9][9];
@@ -50,7 +62,19 @@ public class SudokuGrid {
         horizontal = new int[9];
         square = new int[9];
         
-        this.r = new Random();
+        candidates = new CandidateEngine();
+        searchOrder = SearchOrder.rowMajor;
+        tieBreak = TieBreak.first;
+        
+        this.r = new SplittableRandom();
+    }
+
+    /**
+     * A grid whose random tie breaks and value orders are reproducible.
+     */
+    public SudokuGrid (long seed) {
+        this();
+        this.r = new SplittableRandom(seed);
     }
 
     public int getRealGridVal(int x, int y) {
@@ -197,7 +221,7 @@ public class SudokuGrid {
     public void setRealGridVal(int realGridVal) {
         int x = SudokuGrid.getX(realGridVal);
         int y = SudokuGrid.getY(realGridVal);
-        grid[x][y] = realGridVal;
+        writeCell(x, y, realGridVal);
         setChanged();
         notifyObservers(realGridVal);
     }
@@ -208,8 +232,7 @@ public class SudokuGrid {
             throw new IllegalArgumentException("Cell value is illegal.");
         }
         
-        grid[x][y] &= ~MASK_GRID_VAL;
-        grid[x][y] |= val;
+        writeCell(x, y, (grid[x][y] & ~MASK_GRID_VAL) | val);
         
         setChanged();
         notifyObservers(grid[x][y]);
@@ -300,7 +323,7 @@ public class SudokuGrid {
     public void resetCell(int x, int y, boolean resetDefaultCellsToo) {
         
         if(resetDefaultCellsToo) {
-            grid[x][y] &= MASK_X + MASK_Y;
+            writeCell(x, y, grid[x][y] & (MASK_X + MASK_Y));
         } else {
             grid[x][y] &= ~(MASK_NOTES + MASK_PUZZLE_VAL);
         }
@@ -309,41 +332,60 @@ public class SudokuGrid {
         notifyObservers(grid[x][y]);
     }
     //END OBSERVERS SET CHANGE METHODS
+    
+    private void writeCell(int x, int y, int realGridVal) {
+        candidates.update(x, y, grid[x][y] & MASK_GRID_VAL, realGridVal & MASK_GRID_VAL);
+        grid[x][y] = realGridVal;
+    }
 
     public void clearNonDefaultCells() {
-        for(int i = 0; i < 9; i++) {
-            for(int j = 0; j < 9; j++) {
-                resetCell(j,i,false);
+        beginUpdate();
+        try {
+            for(int i = 0; i < 9; i++) {
+                for(int j = 0; j < 9; j++) {
+                    resetCell(j,i,false);
+                }
             }
+        } finally {
+            endUpdate();
         }
     }
     
     public void resetGrid() {
-        for(int i = 0; i < 9; i++) {
-            for(int j = 0; j < 9; j++) {
-                resetCell(j,i,true);
+        beginUpdate();
+        try {
+            for(int i = 0; i < 9; i++) {
+                for(int j = 0; j < 9; j++) {
+                    resetCell(j,i,true);
+                }
             }
+        } finally {
+            endUpdate();
         }
     }
     
     public boolean isGridValid() {
-        return checkGrid(false, false, false);
+        return candidates.isValid();
     }
     
     public boolean isGridSolved() {
-        return checkGrid(true, false, false);
+        return candidates.isSolved();
     }
 
     public boolean isPuzzleSolved() {
         
-        return checkGrid(true, false, true);
+        return checkPuzzle(true);
     }
     
     public boolean isPuzzleValid() {
-        return checkGrid(false, false, true);
+        return checkPuzzle(false);
     }
     
-    private boolean checkGrid(boolean toBeSolvedToo, boolean usedForFindAvMoves, boolean checkPuzzle) {
+    /*
+     * Grid values are tracked incrementally by the CandidateEngine, only the
+     * puzzle values entered by the player still need a rescan.
+     */
+    private boolean checkPuzzle(boolean toBeSolvedToo) {
         int m = 0 , n = 0;
         
         //reset Arrays
@@ -353,15 +395,8 @@ public class SudokuGrid {
         
         for(int i = 0; i < 9; i++) {
             for(int j = 0; j < 9; j++) {
-                int trueVal1 = 0;
-                int trueVal2 = 0;
-                if(checkPuzzle) {
-                    trueVal1 = getVal(j,i);
-                    trueVal2 = getVal(i,j);
-                } else {
-                    trueVal1 = getGridVal(j,i);
-                    trueVal2 = getGridVal(i,j);
-                }
+                int trueVal1 = getVal(j,i);
+                int trueVal2 = getVal(i,j);
                 int k1 = 0, k2 = 0;
                 if(trueVal1 != 0) {
                     k1 =  1 << (trueVal1 - 1);
@@ -378,8 +413,7 @@ public class SudokuGrid {
 
                 if(((vertical[i] & k2) > 0 || 
                    (horizontal[i] & k1) > 0 || 
-                   (square[n] & k1) > 0) &&
-                   !usedForFindAvMoves) {
+                   (square[n] & k1) > 0)) {
                     return false;
                 } else {
                     vertical[i] |= k2; square[n] |= k1; horizontal[i] |= k1; 
@@ -401,39 +435,35 @@ public class SudokuGrid {
         return true; 
     }
     
-    public int[] getAvailabeValuesField(int x, int y, boolean sortIt) {
+    /**
+     * @return 9-bit mask of the values still available for the cell, bit 0
+     *         stands for value 1
+     */
+    public int getCandidateMask(int x, int y) {
         if((y < 0) || (y > 8) || (x < 0) || (x > 8)) {
             throw new IllegalArgumentException("Invalid cell address.");
         }
         
-        checkGrid(false, true, false);
-        
-        int n = 3*(x/3)+(y/3);
-
-        int k = 0;
-        boolean[] b = new boolean[9];
-        
-        for(int i = 0; i < 9; i++) {
-            
-            if((vertical[x] & (1 << i)) == 0 && 
-               (horizontal[y] & (1 << i)) == 0 && 
-               (square[n] & (1 << i)) == 0) {
-                b[i] = true;
-                k++;
-            }
+        return candidates.getCandidates(x, y);
+    }
+    
+    public int[] getAvailabeValuesField(int x, int y, boolean sortIt) {
+        if((y < 0) || (y > 8) || (x < 0) || (x > 8)) {
+            throw new IllegalArgumentException("Invalid cell address.");
         }
+        
+        int mask = candidates.getCandidates(x, y);
 
-        int[] result = new int[k];
+        int[] result = new int[Integer.bitCount(mask)];
         
         //SORT RESULT
-        k = 0;
+        int k = 0;
         for(int i = 0; i < 9; i++) {
-            if(b[i]) {
+            if((mask & (1 << i)) != 0) {
                 result[k] = i+1;
                 k++;
             }
         }
-        b = null;
         if(!sortIt) {
             randomizeArray(result);
         }
@@ -444,11 +474,63 @@ public class SudokuGrid {
         return getNextMove(-1,0);
     }
     
+    public SearchOrder getSearchOrder() {
+        return searchOrder;
+    }
+    
+    public TieBreak getTieBreak() {
+        return tieBreak;
+    }
+    
+    /**
+     * Selects how {@link #getNextCell(int, int)} picks the next cell to branch
+     * on. With {@link SearchOrder#mostConstrained} the cell with the fewest
+     * candidates among the empty non default cells is chosen and x/y are
+     * ignored; ties are resolved by the given rule.
+     */
+    public void setSearchOrder(SearchOrder searchOrder, TieBreak tieBreak) {
+        this.searchOrder = searchOrder;
+        this.tieBreak = tieBreak;
+    }
+    
+    /**
+     * Replaces the source of the random tie breaks and value orders, for
+     * example with a stream split off a seeded generator. Streams are not
+     * thread safe, a grid must not share its stream with another thread.
+     */
+    public void setRandom(SplittableRandom r) {
+        this.r = r;
+    }
+
     protected GeneratorMove getNextMove(int x, int y) {
+        int cell = getNextCell(x,y);
+        if(cell < 0) {
+            return null;
+        }
+        x = cell / 9;
+        y = cell % 9;
+
+        int[] moves = getAvailabeValuesField(x,y, false);
+        if(moves.length > 0) {
+            return new GeneratorMove(x,y,moves,0);
+        }
+        return null;
+    }
+    
+    /**
+     * Allocation free variant of {@link #getNextMove(int, int)}.
+     * 
+     * @return the cell index x*9+y of the next cell to branch on, or -1 if
+     *         there is none left. The cell may have no candidates at all.
+     */
+    protected int getNextCell(int x, int y) {
+        if(searchOrder == SearchOrder.mostConstrained) {
+            return getMostConstrainedCell();
+        }
         do { //No default Fields
             if(x + 1 > 8) { //y mod 9;
                 if(y + 1 > 8) {
-                    return null;
+                    return -1;
                 }
                 x = 0;
                 y += 1;
@@ -456,12 +538,62 @@ public class SudokuGrid {
                 x += 1;
             }
         } while(isDefault(x,y));
-
-        int[] moves = getAvailabeValuesField(x,y, false);
-        if(moves.length > 0) {
-            return new GeneratorMove(x,y,moves,0);
+        
+        return CandidateEngine.cellIndex(x,y);
+    }
+    
+    private int getMostConstrainedCell() {
+        int bestX = -1, bestY = -1;
+        int bestCount = 10, bestDegree = -1, ties = 0;
+        
+        for(int y = 0; y < 9; y++) {
+            for(int x = 0; x < 9; x++) {
+                if(isDefault(grid[x][y]) || getGridVal(grid[x][y]) != 0) continue;
+                
+                int count = Integer.bitCount(candidates.getCandidates(x,y));
+                if(count > bestCount) continue;
+                
+                if(count < bestCount) {
+                    bestCount = count; bestX = x; bestY = y;
+                    bestDegree = tieBreak == TieBreak.maxDegree ? getDegree(x,y) : -1;
+                    ties = 1;
+                    if(count == 0) return CandidateEngine.cellIndex(x,y); //dead end
+                    continue;
+                }
+                
+                switch (tieBreak) {
+                case first: break;
+                
+                case random:
+                    ties++;
+                    if(r.nextInt(ties) == 0) {
+                        bestX = x; bestY = y;
+                    }
+                    break;
+                    
+                case maxDegree:
+                    int degree = getDegree(x,y);
+                    if(degree > bestDegree) {
+                        bestDegree = degree; bestX = x; bestY = y;
+                    }
+                    break;
+                }
+            }
         }
-        return null;
+        if(bestX < 0) {
+            return -1;
+        }
+        return CandidateEngine.cellIndex(bestX,bestY);
+    }
+    
+    /*
+     * Number of open cells constrained by (x,y): the empty places left in its
+     * vertical line, horizontal line and square.
+     */
+    private int getDegree(int x, int y) {
+        return 27 - Integer.bitCount(candidates.getVertical(x))
+                  - Integer.bitCount(candidates.getHorizontal(y))
+                  - Integer.bitCount(candidates.getSquare(CandidateEngine.squareIndex(x,y)));
     }
 
     //OBSERVERS MANEGMANT
@@ -480,13 +612,77 @@ public class SudokuGrid {
     
     public void notifyObservers(int cell) {
         if(hasChanged) {
-            for (SudokuObserver so : observers) {
-                so.updateCellChange(cell);
+            if(batchDepth > 0) {
+                int index = CandidateEngine.cellIndex(getX(cell), getY(cell));
+                if(index < 64) {
+                    changedLow |= 1L << index;
+                } else {
+                    changedHigh |= 1L << (index - 64);
+                }
+            } else {
+                for (int i = 0; i < observers.size(); i++) {
+                    observers.get(i).updateCellChange(cell);
+                }
             }
             hasChanged = false;
         }
     }
     
+    /**
+     * Starts a batch of updates: observers are not notified until the
+     * matching {@link #endUpdate()}, which reports every changed cell once.
+     * Batches may be nested; only the outermost one notifies.
+     */
+    public void beginUpdate() {
+        batchDepth++;
+    }
+    
+    /**
+     * Ends a batch of updates. Bulk observers receive the changed cells as
+     * one set, all other observers one updateCellChange() call per changed
+     * cell with its final value.
+     */
+    public void endUpdate() {
+        if(batchDepth == 0) {
+            throw new IllegalStateException("No update in progress.");
+        }
+        if(--batchDepth > 0 || (changedLow | changedHigh) == 0) {
+            return;
+        }
+        long low = changedLow;
+        long high = changedHigh;
+        changedLow = changedHigh = 0;
+        // the solvers run in batches, which must not allocate without observers
+        if(observers.isEmpty()) {
+            return;
+        }
+        BitSet cells = null;
+        for (int i = 0; i < observers.size(); i++) {
+            SudokuObserver so = observers.get(i);
+            if(so instanceof BulkSudokuObserver) {
+                if(cells == null) {
+                    cells = BitSet.valueOf(new long[] {low, high});
+                }
+                ((BulkSudokuObserver) so).updateCellsChange((BitSet) cells.clone());
+            } else {
+                notifyCells(so, low, 0);
+                notifyCells(so, high, 64);
+            }
+        }
+    }
+    
+    private void notifyCells(SudokuObserver so, long bits, int offset) {
+        while(bits != 0) {
+            int c = offset + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            so.updateCellChange(grid[c / 9][c % 9]);
+        }
+    }
+    
+    public boolean isUpdating() {
+        return batchDepth > 0;
+    }
+    
     public SerGrid getSerGrid() {
         SerGrid sg = new SerGrid();
         int countDiff = 0;
@@ -503,12 +699,17 @@ public class SudokuGrid {
     }
     
     public void setSerGrid(SerGrid sg) {
-        for(int i = 0; i < 9; i++) {
-            for(int j = 0; j < 9; j++) {
-                grid[j][i] = sg.grid[j][i] ;
-                setChanged();
-                notifyObservers(grid[j][i]);
+        beginUpdate();
+        try {
+            for(int i = 0; i < 9; i++) {
+                for(int j = 0; j < 9; j++) {
+                    writeCell(j, i, sg.grid[j][i]);
+                    setChanged();
+                    notifyObservers(grid[j][i]);
+                }
             }
+        } finally {
+            endUpdate();
         }
     }
     
@@ -0,0 +1,176 @@
+/* PuzzleCorpus created on 18.10.2026 */
+package net.sourceforge.playsudoku.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import net.sourceforge.playsudoku.SudokuGrid;
+
+/**
+ * Read only, memory mapped view of a puzzle corpus file with one 81
+ * character record per line ('1'-'9' for givens, '0' or '.' for open cells).
+ * All records must use the same line terminator, which makes every record
+ * addressable by its index without scanning the file.
+ * <p>
+ * Records are parsed straight from the mapped pages into caller supplied
+ * arrays, so no objects are created per record. The file is mapped in
+ * regions of at most 1 GB holding whole records; all read methods only use
+ * absolute buffer access and can be called from many threads at once.
+ * Character i of a record is the cell with index i = x*9+y, the order of
+ * {@link SudokuGrid#returnGridSequence()}.
+ */
+public class PuzzleCorpus implements Closeable {
+
+    private static final int CELLS = 81;
+    private static final long MAX_REGION = 1L << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final int stride;
+    private final long recordsPerRegion;
+    private final long size;
+
+    private PuzzleCorpus(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long length = channel.size();
+        stride = detectStride(channel, length);
+        size = length / stride + (length % stride >= CELLS ? 1 : 0);
+        recordsPerRegion = MAX_REGION / stride;
+
+        long regionBytes = recordsPerRegion * stride;
+        int count = (int) ((length + regionBytes - 1) / regionBytes);
+        regions = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long position = i * regionBytes;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(regionBytes, length - position));
+        }
+    }
+
+    public static PuzzleCorpus open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new PuzzleCorpus(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int detectStride(FileChannel channel, long length) throws IOException {
+        if (length <= CELLS) {
+            return CELLS + 1;
+        }
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(length, CELLS + 2));
+        if (head.get(CELLS) == '\n') {
+            return CELLS + 1;
+        }
+        if (head.get(CELLS) == '\r' && head.limit() > CELLS + 1 && head.get(CELLS + 1) == '\n') {
+            return CELLS + 2;
+        }
+        throw new IOException("Not a corpus of 81 character records.");
+    }
+
+    /**
+     * @return the number of records in the corpus
+     */
+    public long size() {
+        return size;
+    }
+
+    private MappedByteBuffer region(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid record index: " + index);
+        }
+        return regions[(int) (index / recordsPerRegion)];
+    }
+
+    private int offset(long index) {
+        return (int) ((index % recordsPerRegion) * stride);
+    }
+
+    /**
+     * @param values receives the 81 cell values of the record, 0 for an open
+     *        cell
+     * @return false if the record contains an illegal character
+     */
+    public boolean readValues(long index, int[] values) {
+        MappedByteBuffer buf = region(index);
+        int offset = offset(index);
+        for (int i = 0; i < CELLS; i++) {
+            int c = buf.get(offset + i);
+            if (c >= '1' && c <= '9') {
+                values[i] = c - '0';
+            } else if (c == '0' || c == '.') {
+                values[i] = 0;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a record into the packed cell format of {@link SudokuGrid}:
+     * coordinates, grid value and the editable flag, plus the default flag
+     * for givens.
+     *
+     * @param cells receives 81 real grid values
+     * @return false if the record contains an illegal character
+     */
+    public boolean readCells(long index, int[] cells) {
+        MappedByteBuffer buf = region(index);
+        int offset = offset(index);
+        for (int i = 0; i < CELLS; i++) {
+            int c = buf.get(offset + i);
+            int cell = ((i / 9) << 28) | ((i % 9) << 24) | SudokuGrid.MASK_IS_EDITABLE;
+            if (c >= '1' && c <= '9') {
+                cell |= (c - '0') | SudokuGrid.MASK_IS_DEFAULT;
+            } else if (c != '0' && c != '.') {
+                return false;
+            }
+            cells[i] = cell;
+        }
+        return true;
+    }
+
+    /**
+     * Parses a record into a SerGrid that can be passed to
+     * {@link SudokuGrid#setSerGrid(SerGrid)}; the difficulty is set to the
+     * number of givens like {@link SudokuGrid#getSerGrid()} does.
+     */
+    public boolean readSerGrid(long index, SerGrid sg) {
+        MappedByteBuffer buf = region(index);
+        int offset = offset(index);
+        int givens = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int c = buf.get(offset + i);
+            int x = i / 9;
+            int y = i % 9;
+            int cell = (x << 28) | (y << 24) | SudokuGrid.MASK_IS_EDITABLE;
+            if (c >= '1' && c <= '9') {
+                cell |= (c - '0') | SudokuGrid.MASK_IS_DEFAULT;
+                givens++;
+            } else if (c != '0' && c != '.') {
+                return false;
+            }
+            sg.grid[x][y] = cell;
+        }
+        sg.difficulty = givens;
+        return true;
+    }
+
+    /**
+     * Closes the file; the mapped regions are released once they are
+     * garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
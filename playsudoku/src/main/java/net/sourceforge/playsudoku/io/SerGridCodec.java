@@ -0,0 +1,213 @@
+/* SerGridCodec created on 18.10.2026 */
+package net.sourceforge.playsudoku.io;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import net.sourceforge.playsudoku.SudokuGrid;
+
+/**
+ * Compact binary encoding of a {@link SerGrid}.
+ * <p>
+ * A record starts with a kind byte and the difficulty (0..255), followed by
+ * the cells in index order x*9+y. The coordinates are implied by the order.
+ * <ul>
+ * <li>{@link #KIND_FULL}: 20 bits per cell, i.e. grid value (4 bits),
+ * puzzle value (4), notes (9) and the default, editable and hint flags (3),
+ * two cells per 5 bytes; 205 bytes in total.</li>
+ * <li>{@link #KIND_VALUES}: for grids without notes, puzzle values or hints
+ * whose cells are all editable, as stored for fresh puzzles: one nibble per
+ * grid value and a bitmap of the default cells; 54 bytes in total.</li>
+ * </ul>
+ * {@link #encode(SerGrid, ByteBuffer)} picks the smaller kind that can hold
+ * the grid. Encoding and decoding allocate nothing. Buffers must use
+ * big-endian byte order, the ByteBuffer default. {@link SerGridWriter} and
+ * {@link SerGridReader} store many records in a versioned stream.
+ */
+public final class SerGridCodec {
+
+    public static final int KIND_FULL = 0;
+    public static final int KIND_VALUES = 1;
+
+    public static final int FULL_SIZE = 2 + 40 * 5 + 3;
+    public static final int VALUES_SIZE = 2 + 41 + 11;
+    public static final int MAX_SIZE = FULL_SIZE;
+
+    private static final int CELL_BITS = 0x1FFFF;
+    // coordinate bits of the cell with index i = x*9+y
+    private static final int[] COORDINATES = new int[81];
+
+    static {
+        for (int i = 0; i < 81; i++) {
+            COORDINATES[i] = ((i / 9) << 28) | ((i % 9) << 24);
+        }
+    }
+    private static final int FLAG_SHIFT = 20;
+    private static final int FLAGS = SudokuGrid.MASK_IS_DEFAULT
+            | SudokuGrid.MASK_IS_EDITABLE | SudokuGrid.MASK_IS_HINT;
+    // everything but coordinates, grid value and default flag must match
+    private static final int VALUES_MASK = ~(SudokuGrid.MASK_X | SudokuGrid.MASK_Y
+            | SudokuGrid.MASK_GRID_VAL | SudokuGrid.MASK_IS_DEFAULT);
+
+    private SerGridCodec() {
+    }
+
+    /**
+     * @return {@link #KIND_VALUES} if the grid fits, {@link #KIND_FULL}
+     *         otherwise
+     */
+    public static int kindOf(SerGrid sg) {
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if ((sg.grid[x][y] & VALUES_MASK) != SudokuGrid.MASK_IS_EDITABLE) {
+                    return KIND_FULL;
+                }
+            }
+        }
+        return KIND_VALUES;
+    }
+
+    public static int encodedSize(SerGrid sg) {
+        return kindOf(sg) == KIND_VALUES ? VALUES_SIZE : FULL_SIZE;
+    }
+
+    // 20 bit form of a packed SudokuGrid cell
+    private static long pack(int cell) {
+        return (cell & CELL_BITS) | (((cell & FLAGS) >>> FLAG_SHIFT) << 17);
+    }
+
+    // packed form of the 20 bit cell, still to be checked for illegal values
+    private static int unpack(int bits) {
+        return (bits & CELL_BITS) | (((bits >>> 17) & 7) << FLAG_SHIFT);
+    }
+
+    // bit 4 is set if the nibble is greater than 9
+    private static int overflow(int nibble) {
+        return (nibble & 0xF) + 6;
+    }
+
+    private static int cell(SerGrid sg, int index) {
+        return sg.grid[index / 9][index % 9];
+    }
+
+    private static void checkOrder(ByteBuffer buf) {
+        if (buf.order() != ByteOrder.BIG_ENDIAN) {
+            throw new IllegalArgumentException("Buffer must be big-endian.");
+        }
+    }
+
+    /**
+     * Writes one record at the buffer's position.
+     *
+     * @throws BufferOverflowException if fewer than
+     *         {@link #encodedSize(SerGrid)} bytes remain
+     */
+    public static void encode(SerGrid sg, ByteBuffer buf) {
+        checkOrder(buf);
+        if (sg.difficulty < 0 || sg.difficulty > 255) {
+            throw new IllegalArgumentException("Difficulty out of range.");
+        }
+        int kind = kindOf(sg);
+        if (buf.remaining() < (kind == KIND_VALUES ? VALUES_SIZE : FULL_SIZE)) {
+            throw new BufferOverflowException();
+        }
+        buf.put((byte) kind);
+        buf.put((byte) sg.difficulty);
+        if (kind == KIND_VALUES) {
+            long defaults = 0;
+            int high = 0;
+            for (int i = 0; i < 80; i += 2) {
+                int a = cell(sg, i);
+                int b = cell(sg, i + 1);
+                buf.put((byte) (((a & 0xF) << 4) | (b & 0xF)));
+            }
+            buf.put((byte) ((cell(sg, 80) & 0xF) << 4));
+            for (int i = 0; i < 81; i++) {
+                if ((cell(sg, i) & SudokuGrid.MASK_IS_DEFAULT) != 0) {
+                    if (i < 64) {
+                        defaults |= 1L << i;
+                    } else {
+                        high |= 1 << (i - 64);
+                    }
+                }
+            }
+            buf.putLong(defaults);
+            buf.putShort((short) (high >>> 8));
+            buf.put((byte) high);
+        } else {
+            for (int i = 0; i < 80; i += 2) {
+                long pair = pack(cell(sg, i)) | (pack(cell(sg, i + 1)) << 20);
+                buf.putInt((int) (pair >>> 8));
+                buf.put((byte) pair);
+            }
+            int last = (int) pack(cell(sg, 80));
+            buf.putShort((short) (last >>> 4));
+            buf.put((byte) (last << 4));
+        }
+    }
+
+    /**
+     * Reads one record at the buffer's position into <code>sg</code>.
+     *
+     * @throws BufferUnderflowException if the record is incomplete; the
+     *         position is left unchanged in that case
+     * @throws IllegalArgumentException if the record is malformed; the
+     *         contents of <code>sg</code> are undefined in that case
+     */
+    public static void decode(ByteBuffer buf, SerGrid sg) {
+        checkOrder(buf);
+        int start = buf.position();
+        if (buf.remaining() < 2) {
+            throw new BufferUnderflowException();
+        }
+        int kind = buf.get(start);
+        int size = kind == KIND_VALUES ? VALUES_SIZE : kind == KIND_FULL ? FULL_SIZE : -1;
+        if (size < 0) {
+            throw new IllegalArgumentException("Unknown record kind: " + kind);
+        }
+        if (buf.remaining() < size) {
+            throw new BufferUnderflowException();
+        }
+        sg.difficulty = buf.get(start + 1) & 0xFF;
+        int[][] grid = sg.grid;
+        int bad = 0;
+        int pos = start + 2;
+        if (kind == KIND_VALUES) {
+            long defaults = buf.getLong(pos + 41);
+            long high = ((buf.getShort(pos + 49) & 0xFFFFL) << 8) | (buf.get(pos + 51) & 0xFF);
+            int i = 0;
+            // 16 values per long, the last long overlaps the default bitmap
+            for (int w = 0; w < 6; w++) {
+                long nibbles = buf.getLong(pos + 8 * w);
+                int n = w < 5 ? 16 : 1;
+                for (int k = 0; k < n; k++, i++) {
+                    int val = (int) (nibbles >>> (60 - 4 * k)) & 0xF;
+                    bad |= overflow(val);
+                    long isDefault = i < 64 ? defaults >>> i : high >>> (i - 64);
+                    grid[i / 9][i % 9] = COORDINATES[i] | val | SudokuGrid.MASK_IS_EDITABLE
+                            | ((int) isDefault & 1) * SudokuGrid.MASK_IS_DEFAULT;
+                }
+            }
+        } else {
+            // 40 bits per pair of cells, read as the upper bytes of a long
+            for (int i = 0; i < 80; i += 2) {
+                long pair = buf.getLong(pos + (i >> 1) * 5) >>> 24;
+                int a = unpack((int) pair & 0xFFFFF);
+                int b = unpack((int) (pair >>> 20));
+                bad |= overflow(a) | overflow(a >>> 4) | overflow(b) | overflow(b >>> 4);
+                grid[i / 9][i % 9] = COORDINATES[i] | a;
+                grid[(i + 1) / 9][(i + 1) % 9] = COORDINATES[i + 1] | b;
+            }
+            int last = unpack(((buf.getShort(pos + 200) & 0xFFFF) << 4)
+                    | ((buf.get(pos + 202) & 0xFF) >>> 4));
+            bad |= overflow(last) | overflow(last >>> 4);
+            grid[8][8] = COORDINATES[80] | last;
+        }
+        if ((bad & 0x10) != 0) {
+            throw new IllegalArgumentException("Cell value is illegal.");
+        }
+        buf.position(start + size);
+    }
+}
@@ -0,0 +1,87 @@
+/* SerGridReader created on 18.10.2026 */
+package net.sourceforge.playsudoku.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the grids written by a {@link SerGridWriter} one after another into
+ * a caller supplied {@link SerGrid}, so reading allocates nothing per grid.
+ */
+public class SerGridReader implements Closeable {
+
+    private final InputStream in;
+    private final ByteBuffer buf;
+    private final int version;
+    private boolean eof;
+
+    public SerGridReader(InputStream in) throws IOException {
+        this(in, 1 << 16);
+    }
+
+    public SerGridReader(InputStream in, int bufferSize) throws IOException {
+        if (bufferSize < SerGridCodec.MAX_SIZE) {
+            throw new IllegalArgumentException("Buffer too small.");
+        }
+        this.in = in;
+        buf = ByteBuffer.allocate(bufferSize);
+        buf.limit(0);
+        fill(5);
+        if (buf.remaining() < 5 || buf.getInt() != SerGridWriter.MAGIC) {
+            throw new IOException("Not a grid archive.");
+        }
+        version = buf.get() & 0xFF;
+        if (version > SerGridWriter.VERSION) {
+            throw new IOException("Unsupported grid archive version " + version + ".");
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    // makes at least min bytes available unless the stream ends first
+    private void fill(int min) throws IOException {
+        if (buf.remaining() >= min || eof) {
+            return;
+        }
+        buf.compact();
+        while (buf.position() < min && !eof) {
+            int n = in.read(buf.array(), buf.position(), buf.remaining());
+            if (n < 0) {
+                eof = true;
+            } else {
+                buf.position(buf.position() + n);
+            }
+        }
+        buf.flip();
+    }
+
+    /**
+     * @return false at the end of the archive
+     * @throws EOFException if the archive ends within a record
+     */
+    public boolean read(SerGrid sg) throws IOException {
+        fill(SerGridCodec.MAX_SIZE);
+        if (!buf.hasRemaining()) {
+            return false;
+        }
+        try {
+            SerGridCodec.decode(buf, sg);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Truncated grid archive.");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt grid archive: " + e.getMessage(), e);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,66 @@
+/* SerGridWriter created on 18.10.2026 */
+package net.sourceforge.playsudoku.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a stream of {@link SerGridCodec} records behind a short header
+ * holding the magic bytes "SDKG" and the format version. Records are
+ * collected in an internal buffer, so writing allocates nothing per grid.
+ */
+public class SerGridWriter implements Closeable {
+
+    public static final int MAGIC = 0x53444B47;
+    public static final int VERSION = 1;
+
+    private final OutputStream out;
+    private final ByteBuffer buf;
+    private long count;
+
+    public SerGridWriter(OutputStream out) throws IOException {
+        this(out, 1 << 16);
+    }
+
+    public SerGridWriter(OutputStream out, int bufferSize) throws IOException {
+        if (bufferSize < SerGridCodec.MAX_SIZE) {
+            throw new IllegalArgumentException("Buffer too small.");
+        }
+        this.out = out;
+        buf = ByteBuffer.allocate(bufferSize);
+        buf.putInt(MAGIC);
+        buf.put((byte) VERSION);
+    }
+
+    public void write(SerGrid sg) throws IOException {
+        if (buf.remaining() < SerGridCodec.MAX_SIZE) {
+            flush();
+        }
+        SerGridCodec.encode(sg, buf);
+        count++;
+    }
+
+    /**
+     * @return the number of grids written so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void flush() throws IOException {
+        out.write(buf.array(), 0, buf.position());
+        buf.clear();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -2,65 +2,125 @@
 package com.jtconnors.sudokufx2;
 
 import java.util.ArrayList;
-import net.sourceforge.playsudoku.*;
+import java.util.Arrays;
+import java.util.BitSet;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.IntegerPropertyBase;
 import static com.jtconnors.sudokufx2.Globals.NROWS;
 import static com.jtconnors.sudokufx2.Globals.NCOLUMNS;
 
 public class Board {
 
     /*
-     * Internal representation of each space on the Sudoku Board.  The
-     * structure draws its roots from the original JavaFX Script version,
-     * which does not support multi-dimensional arrays.  For the Java version
-     * this could be updated.
+     * The board is kept as flat primitive arrays indexed by getIndex():
+     * the number 0..9 of every space, which spaces are uneditable (the
+     * hints) or in conflict, and the solved numbers.  The raw numbers
+     * described in Space (+10 for uneditable, +20 for conflict) are only
+     * put together when asked for.
+     *
+     * Space objects and their JavaFX properties are created on demand, by
+     * getSpace() and numberProperty(), so a board nobody displays holds
+     * no objects per space.
      */
-    private final Space[] spaces;
-    private final Space[][] rowGrouping = new Space[NROWS][NCOLUMNS];
-    private final Space[][] columnGrouping = new Space[NROWS][NCOLUMNS];
-    private final Space[][] regionGrouping = new Space[NROWS][NCOLUMNS];
+    private final int[] numbers = new int[NROWS * NCOLUMNS];
+    private final int[] solvedNumbers = new int[NROWS * NCOLUMNS];
+    private final BitSet uneditable = new BitSet(NROWS * NCOLUMNS);
+    private final BitSet conflicts = new BitSet(NROWS * NCOLUMNS);
+    private Space[] spaces;
+    private NumberProperty[] properties;
 
     /*
-     * Constructor initializes each Space object on the Board
+     * The spaces of the 9 rows, 9 columns and 9 regions, numbered 0..8,
+     * NROWS + 0..8 and 2*NROWS + 0..8, each from left to right then top to
+     * bottom.  For every space the three groups it belongs to and its 20
+     * peers: the other spaces sharing one of them.
      */
-    public Board() {
-        spaces = new Space[NROWS * NCOLUMNS];
-        for (int r=0; r<NROWS; r++) {
-            for (int c=0; c<NCOLUMNS; c++) {
-                Space space = new Space(r, c, getRegion(r, c));
-                spaces[r * NCOLUMNS + c] = space;
-                rowGrouping[r][c] = space;
-                columnGrouping[c][r] = space;
-                regionGrouping[space.getRegion()][getRegionIndex(r, c)] = space;
+    private static final int[][] GROUPS = new int[3 * NROWS][NCOLUMNS];
+    private static final int[][] UNITS = new int[NROWS * NCOLUMNS][3];
+    private static final int[][] PEERS = new int[NROWS * NCOLUMNS][];
+
+    static {
+        for (int i=0; i<NROWS * NCOLUMNS; i++) {
+            int r = i / NCOLUMNS;
+            int c = i % NCOLUMNS;
+            UNITS[i][0] = r;
+            UNITS[i][1] = NROWS + c;
+            UNITS[i][2] = 2*NROWS + getRegion(r, c);
+            GROUPS[r][c] = i;
+            GROUPS[NROWS + c][r] = i;
+            GROUPS[2*NROWS + getRegion(r, c)][getRegionIndex(r, c)] = i;
+            int[] peers = new int[NROWS * NCOLUMNS];
+            int n = 0;
+            for (int j=0; j<NROWS * NCOLUMNS; j++) {
+                if (j != i && (j / NCOLUMNS == r || j % NCOLUMNS == c ||
+                        getRegion(j / NCOLUMNS, j % NCOLUMNS) == getRegion(r, c))) {
+                    peers[n++] = j;
+                }
             }
+            PEERS[i] = Arrays.copyOf(peers, n);
         }
     }
 
-    public static int getIndex(int row, int column) {
-        return (row * NCOLUMNS) + column;
-    }
+    /*
+     * How often each number 1..9 occurs in every row, column and region,
+     * indexed unit*10 + number, in all spaces and in editable spaces only.
+     * Updated on every write, so a conflict check only has to look at the
+     * three units of a space.
+     */
+    private final byte[] numberCount = new byte[3 * NROWS * 10];
+    private final byte[] editableCount = new byte[3 * NROWS * 10];
 
-    public Space getSpace(int row, int column) {
-        return spaces[getIndex(row, column)];
-    }
+    /*
+     * Optional source of pre-generated puzzles, see newPuzzle()
+     */
+    private PuzzlePool puzzlePool;
 
-    public int getNumberRaw(int row, int column) {
-        Space space = getSpace(row, column);
-        return space.getNumberRaw();
+    /*
+     * JavaFX view of one raw number, created for the spaces a view binds
+     * to.  Writes through the property go to the board, and the board
+     * updates the property whenever it changes the space.
+     */
+    private final class NumberProperty extends IntegerPropertyBase {
+
+        private final int index;
+
+        NumberProperty(int index) {
+            super(getNumberRaw(index));
+            this.index = index;
+        }
+
+        /*
+         * Reading the value here also validates the property again, so
+         * invalidation listeners hear of every change.
+         */
+        @Override
+        protected void invalidated() {
+            if (get() != getNumberRaw(index)) {
+                setNumberRaw(index, get());
+            }
+        }
+
+        @Override
+        public Object getBean() {
+            return getSpace(index);
+        }
+
+        @Override
+        public String getName() {
+            return "number";
+        }
     }
 
-    public int getNumberExternal(int row, int column) {
-        Space space = getSpace(row, column);
-        return space.getNumberExternal();
+    public PuzzlePool getPuzzlePool() {
+        return puzzlePool;
     }
 
-    public void setNumberEditable(int row, int column, int number) {
-        Space space = getSpace(row, column);
-        space.setNumberEditable(number);
+    public void setPuzzlePool(PuzzlePool puzzlePool) {
+        this.puzzlePool = puzzlePool;
     }
 
-    public void setNumberUnEditable(int row, int column, int number) {
-        Space space = getSpace(row, column);
-        space.setNumberUnEditable(number);
+    public static int getIndex(int row, int column) {
+        return (row * NCOLUMNS) + column;
     }
 
     /*
@@ -89,7 +149,7 @@ public class Board {
 
     /*
      * Given a (row, col) coordinate, calculate within the region what index
-     * into the regionGrouping array this space belongs.  Moving from left to
+     * into the region group this space belongs.  Moving from left to
      * right then top to bottom, the upper left space would be index 0,
      * while the bottom right space would be 8.
      */
@@ -97,12 +157,152 @@ public class Board {
        return ((row % 3) *3) + (column % 3);
     }
 
+    public Space getSpace(int row, int column) {
+        return getSpace(getIndex(row, column));
+    }
+
+    /*
+     * The Space adapter of a space, created the first time it is asked for.
+     */
+    public Space getSpace(int index) {
+        if (spaces == null) {
+            spaces = new Space[NROWS * NCOLUMNS];
+        }
+        if (spaces[index] == null) {
+            spaces[index] = new Space(this, index);
+        }
+        return spaces[index];
+    }
+
+    /*
+     * The property behind Space.numberProperty(), created the first time
+     * it is asked for.
+     */
+    IntegerProperty numberProperty(int index) {
+        if (properties == null) {
+            properties = new NumberProperty[NROWS * NCOLUMNS];
+        }
+        if (properties[index] == null) {
+            properties[index] = new NumberProperty(index);
+        }
+        return properties[index];
+    }
+
+    public int getNumberRaw(int row, int column) {
+        return getNumberRaw(getIndex(row, column));
+    }
+
+    /*
+     * The number of a space in the encoding described in Space.
+     */
+    public int getNumberRaw(int index) {
+        return numbers[index] + (uneditable.get(index) ? 10 : 0) +
+                (conflicts.get(index) ? 20 : 0);
+    }
+
+    public int getNumberExternal(int row, int column) {
+        return numbers[getIndex(row, column)];
+    }
+
+    public int getNumberExternal(int index) {
+        return numbers[index];
+    }
+
+    public boolean isEditable(int index) {
+        return !uneditable.get(index);
+    }
+
+    public boolean isConflict(int index) {
+        return conflicts.get(index);
+    }
+
+    public int getSolvedNumber(int index) {
+        return solvedNumbers[index];
+    }
+
+    public void setSolvedNumber(int index, int solvedNumber) {
+        solvedNumbers[index] = solvedNumber;
+    }
+
+    public void setNumberEditable(int row, int column, int number) {
+        setNumberRaw(getIndex(row, column), number);
+    }
+
+    public void setNumberUnEditable(int row, int column, int number) {
+        setNumberRaw(getIndex(row, column), (number % 10) + 10);
+    }
+
+    /*
+     * Write the number of a space in the encoding described in Space, the
+     * only place where the state of a space changes.
+     */
+    public void setNumberRaw(int index, int numberRaw) {
+        int oldRaw = getNumberRaw(index);
+        if (numberRaw == oldRaw) {
+            return;
+        }
+        count(index, oldRaw, -1);
+        numbers[index] = numberRaw % 10;
+        uneditable.set(index, numberRaw % 20 >= 10);
+        conflicts.set(index, numberRaw >= 20);
+        count(index, numberRaw, 1);
+        if (properties != null && properties[index] != null) {
+            properties[index].set(numberRaw);
+        }
+    }
+
+    private void count(int index, int numberRaw, int delta) {
+        int number = numberRaw % 10;
+        if (number == 0) {
+            return;
+        }
+        for (int unit : UNITS[index]) {
+            numberCount[unit * 10 + number] += delta;
+            if (isEditableRaw(numberRaw)) {
+                editableCount[unit * 10 + number] += delta;
+            }
+        }
+    }
+
+    private void setConflict(int index, boolean conflict) {
+        if (conflicts.get(index) != conflict) {
+            setNumberRaw(index, getNumberRaw(index) + (conflict ? 20 : -20));
+        }
+    }
+
+    /*
+     * Whether the space at index should be marked as a conflict: its
+     * number appears more than once in one of its units, at least once in
+     * an editable space.  The same rule as getConflicts(false).
+     */
+    private boolean isInConflict(int index) {
+        int number = numbers[index];
+        if (number == 0) {
+            return false;
+        }
+        for (int unit : UNITS[index]) {
+            if (numberCount[unit * 10 + number] > 1 &&
+                    editableCount[unit * 10 + number] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Space[] getGrouping(int group) {
+        Space[] grouping = new Space[NCOLUMNS];
+        for (int k=0; k<NCOLUMNS; k++) {
+            grouping[k] = getSpace(GROUPS[group][k]);
+        }
+        return grouping;
+    }
+
     /*
      * Return the sequences of Spaces that make up a row of the
      * Sudoku Board.
      */
     public Space[] getRowGrouping(Space space) {
-        return(rowGrouping[space.getRow()]);
+        return getGrouping(space.getRow());
     }
 
     /*
@@ -110,7 +310,7 @@ public class Board {
      * Sudoku Board.
      */
     public Space[] getColumnGrouping(Space space) {
-        return(columnGrouping[space.getColumn()]);
+        return getGrouping(NROWS + space.getColumn());
     }
 
     /*
@@ -118,7 +318,7 @@ public class Board {
      * Sudoku Board.
      */
     public Space[] getRegionGrouping(Space space) {
-        return(regionGrouping[space.getRegion()]);
+        return getGrouping(2*NROWS + space.getRegion());
     }
 
     /*
@@ -137,67 +337,77 @@ public class Board {
      *     If there are no conflicts return null.
      */
     public ArrayList<Space> getConflicts(boolean completeCheck) {
-        ArrayList<Space> conflicts = new ArrayList<>();
-        for (Space space : spaces) {
+        ArrayList<Space> conflictSpaces = new ArrayList<>();
+        for (int index=0; index<numbers.length; index++) {
             boolean spaceConflict = false;
-            int number = space.getNumberExternal();
+            int number = numbers[index];
             /*
              *  Skip the check for the current space if any of these
              *  conditions are met
              */
-            if (number == 0) { continue; }         // blank space
-            if (space.isConflict()) { continue; }  // already a conflict
-            if ((!completeCheck) && (!space.isEditable())) {
-                continue;                          // non-editable space
-            }
-            // Check against Row
-            for (Space rowSpace : getRowGrouping(space)) {
-                if (rowSpace.getColumn() == space.getColumn()) {
-                    continue;  // skip - comparing against itself
-                }
-                if (rowSpace.getNumberExternal() == number) {
-                    conflicts.add(getSpace(rowSpace.getRow(),
-                            rowSpace.getColumn()));
-                    spaceConflict = true;
-                }
+            if (number == 0) { continue; }              // blank space
+            if (conflicts.get(index)) { continue; }     // already a conflict
+            if ((!completeCheck) && uneditable.get(index)) {
+                continue;                               // non-editable space
             }
-            // Check against Column
-            for (Space columnSpace : getColumnGrouping(space)) {
-                if (columnSpace.getRow() == space.getRow()) {
-                    continue;  // skip - comparing against itself
-                }
-                if (columnSpace.getNumberExternal() == number) {
-                    conflicts.add(getSpace(columnSpace.getRow(),
-                            columnSpace.getColumn()));
-                    spaceConflict = true;
-                }
-            }
-            // Check against Region
-            for (Space regionSpace : getRegionGrouping(space)) {
-                if ((regionSpace.getRow() == space.getRow()) &&
-                    (regionSpace.getColumn() == space.getColumn())) {
-                    continue;  // skip - comparing against itself
-                }
-                if (regionSpace.getNumberExternal() == number) {
-                    conflicts.add(getSpace(regionSpace.getRow(),
-                            regionSpace.getColumn()));
-                    spaceConflict = true;
+            // Check against row, column and region
+            for (int unit : UNITS[index]) {
+                for (int other : GROUPS[unit]) {
+                    if (other != index && numbers[other] == number) {
+                        conflictSpaces.add(getSpace(other));
+                        spaceConflict = true;
+                    }
                 }
             }
             if (spaceConflict) {
-                conflicts.add(space);
+                conflictSpaces.add(getSpace(index));
             }
         }
-        return conflicts;
+        return conflictSpaces;
     }
 
     public ArrayList<Space> getConflictsOptimized() {
         return getConflicts(false);
     }
 
+    /*
+     * Put a number into an editable space and update the conflicts it
+     * causes or resolves.  Only the space and its 20 peers can change, so
+     * the cost does not depend on how full the board is.  Assumes the
+     * conflicts were up to date before, as after a previous call,
+     * clearConflicts() followed by marking getConflictsOptimized(), or a
+     * new puzzle.
+     *
+     * Return value:
+     *     The spaces whose conflict state changed, already updated.
+     */
+    public ArrayList<Space> placeNumber(Space space, int number) {
+        return placeNumber(getIndex(space.getRow(), space.getColumn()), number);
+    }
+
+    public ArrayList<Space> placeNumber(int index, int number) {
+        // the new number replaces the conflict mark of the space too
+        boolean wasConflict = conflicts.get(index);
+        setNumberRaw(index, number);
+        setConflict(index, isInConflict(index));
+        ArrayList<Space> changed = new ArrayList<>();
+        if (conflicts.get(index) != wasConflict) {
+            changed.add(getSpace(index));
+        }
+        for (int peer : PEERS[index]) {
+            boolean conflict = isInConflict(peer);
+            if (conflict != conflicts.get(peer)) {
+                setConflict(peer, conflict);
+                changed.add(getSpace(peer));
+            }
+        }
+        return changed;
+    }
+
     public void clearConflicts() {
-        for (Space space : spaces) {
-            space.clearConflict();
+        for (int index = conflicts.nextSetBit(0); index >= 0;
+                index = conflicts.nextSetBit(index + 1)) {
+            setConflict(index, false);
         }
     }
 
@@ -208,6 +418,9 @@ public class Board {
      * JavaFX form.  The sudokuGrid.returnGridSequence() method performs
      * that task.
      *
+     * If a PuzzlePool has been set, the puzzle is taken from its stock of
+     * ready made puzzles and only generated here when the pool is empty.
+     *
      * Arguments:
      *    numHints:  Determines the Number of initial spaces (hints)
      *               that will be displayed at startup.  The larger
@@ -215,47 +428,113 @@ public class Board {
      */
     public void newPuzzle(int numHints) throws Exception {
         /*
-         * Call SudokuGenerator Java code to generate new puzzle.
+         * Call SudokuGenerator Java code to generate new puzzle, already
+         * converted to a format suitable for JavaFX.
          */
-        SudokuGenerator sudokuGenerator = new SudokuGenerator();
-        sudokuGenerator.generatePuzzle(numHints,
-                GV.NumDistributuon.evenlyFilled3x3Square3 );
-        SudokuGrid sudokuGrid = sudokuGenerator.getGrid();
-        /*
-         * convert results to a format suitable for JavaFX
-         */
-        int[] puzzle = sudokuGrid.returnGridSequence();
+        int[] puzzle = puzzlePool != null ? puzzlePool.take(numHints) :
+                PuzzlePool.generate(numHints);
 
-        if (puzzle.length != spaces.length) {
-            throw new Exception("SudokuGenerator puzzle incompatible");
+        setPuzzle(Puzzle.fromGridSequence(puzzle));
+    }
+
+    /*
+     * Populate our spaces with a new puzzle.  Every space is written
+     * exactly once, so each SpaceNode redraws at most once.
+     */
+    public void setPuzzle(Puzzle puzzle) {
+        for (int i=0; i<numbers.length; i++) {
+            solvedNumbers[i] = puzzle.getSolution(i);
+            setNumberRaw(i, puzzle.isGiven(i) ? puzzle.getGiven(i) + 10 : 0);
         }
-        /*
-         * Populate our spaces with the Integer sequence returned by
-         * the sudokuGrid.returnGridSequence() glue.
-         */
-        clearPuzzle();
-        for (int i=0; i<puzzle.length; i++) {
-            if ((spaces[i].getRow() != SudokuGrid.getX(puzzle[i])) ||
-                (spaces[i].getColumn() != SudokuGrid.getY(puzzle[i]))) {
-                throw new Exception(
-                    "Bad data returned by SudokuGenerator, index={i}");
+    }
+
+    /*
+     * Take an immutable snapshot of the current puzzle: the uneditable
+     * spaces and the solved numbers.
+     */
+    public Puzzle getPuzzle() {
+        int[] givens = new int[numbers.length];
+        for (int i = uneditable.nextSetBit(0); i >= 0;
+                i = uneditable.nextSetBit(i + 1)) {
+            givens[i] = numbers[i];
+        }
+        return new Puzzle(givens, solvedNumbers);
+    }
+
+    public void solvePuzzle() {
+        for (int i=0; i<numbers.length; i++) {
+            setNumberRaw(i, isEditable(i) ? solvedNumbers[i] :
+                    numbers[i] + 10);
+        }
+    }
+
+    /*
+     * Fill all editable spaces with the solution of the given puzzle,
+     * which replaces the solved numbers too.
+     */
+    public void showSolution(Puzzle solution) {
+        for (int i=0; i<numbers.length; i++) {
+            solvedNumbers[i] = solution.getSolution(i);
+        }
+        solvePuzzle();
+    }
+
+    /*
+     * Copy the raw numbers of all spaces, e.g. for findConflicts() on
+     * another thread.
+     */
+    public int[] getNumbersRaw() {
+        int[] numbersRaw = new int[numbers.length];
+        for (int i=0; i<numbers.length; i++) {
+            numbersRaw[i] = getNumberRaw(i);
+        }
+        return numbersRaw;
+    }
+
+    /*
+     * The same check as getConflicts(), computed from a copy of the raw
+     * numbers so that it can run off the JavaFX application thread.  A
+     * number appearing more than once in a row, column or region marks all
+     * of its occurrences there, unless completeCheck is false and none of
+     * them is editable.
+     *
+     * Return value:
+     *     For every space, whether it is in conflict.
+     */
+    public static boolean[] findConflicts(int[] numbers, boolean completeCheck) {
+        boolean[] conflicts = new boolean[numbers.length];
+        int[] count = new int[10];
+        boolean[] editable = new boolean[10];
+        for (int[] group : GROUPS) {
+            for (int v=1; v<=9; v++) {
+                count[v] = 0;
+                editable[v] = false;
             }
-            spaces[i].setSolvedNumber(SudokuGrid.getGridVal(puzzle[i]));
-            if (SudokuGrid.isDefault(puzzle[i])) {
-                spaces[i].setNumberUnEditable(SudokuGrid.getGridVal(puzzle[i]));
+            for (int index : group) {
+                int v = numbers[index] % 10;
+                count[v]++;
+                editable[v] |= isEditableRaw(numbers[index]);
             }
-            else {
-                spaces[i].setNumberEditable(0);
+            for (int index : group) {
+                int v = numbers[index] % 10;
+                if (v != 0 && count[v] > 1 && (completeCheck || editable[v])) {
+                    conflicts[index] = true;
+                }
             }
         }
+        return conflicts;
     }
 
-    public void solvePuzzle() {
-        clearConflicts();
-        for (Space space : spaces) {
-            if (space.isEditable()) {
-                space.setNumberEditable(space.getSolvedNumber());
-            }
+    private static boolean isEditableRaw(int numberRaw) {
+        return (numberRaw < 10) || (numberRaw >= 21 && numberRaw <= 29);
+    }
+
+    /*
+     * Mark exactly the given spaces as conflicts, one update per space.
+     */
+    public void setConflicts(boolean[] conflicts) {
+        for (int i=0; i<numbers.length; i++) {
+            setConflict(i, conflicts[i] && numbers[i] != 0);
         }
     }
 
@@ -264,11 +543,8 @@ public class Board {
      * all editable spaces, leave uneditable spaces intact)
      */
     public void resetPuzzle() {
-        clearConflicts();
-        for (Space space : spaces) {
-            if (space.isEditable()) {
-                space.setEmpty();
-            }
+        for (int i=0; i<numbers.length; i++) {
+            setNumberRaw(i, isEditable(i) ? 0 : numbers[i] + 10);
         }
     }
 
@@ -276,8 +552,9 @@ public class Board {
      * Clear all spaces in the puzzle
      */
     public void clearPuzzle() {
-        for (Space space : spaces) {
-            space.clear();
+        for (int i=0; i<numbers.length; i++) {
+            setNumberRaw(i, 0);
+            solvedNumbers[i] = 0;
         }
     }
-}
\ No newline at end of file
+}
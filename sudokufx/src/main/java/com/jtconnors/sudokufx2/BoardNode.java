@@ -1,7 +1,6 @@
 
 package com.jtconnors.sudokufx2;
 
-import java.util.ArrayList;
 import javafx.beans.Observable;
 import javafx.application.Platform;
 import javafx.scene.Group;
@@ -24,6 +23,7 @@ import static com.jtconnors.sudokufx2.Globals.NROWS;
 import static com.jtconnors.sudokufx2.Globals.NCOLUMNS;
 import static com.jtconnors.sudokufx2.Globals.NUM_HINTS_EASY;
 import static com.jtconnors.sudokufx2.Globals.NUM_HINTS_HARD;
+import static com.jtconnors.sudokufx2.Globals.PUZZLE_POOL_SIZE;
 import static com.jtconnors.sudokufx2.Globals.BOARD_AREA_WIDTH_UNSCALED;
 import static com.jtconnors.sudokufx2.Globals.IMAGE_FILES_PREFIX;
 import static com.jtconnors.sudokufx2.Globals.ICON_SIZE;
@@ -185,6 +185,11 @@ public class BoardNode extends Parent {
 
     private Board board = new Board();
     public Board getBoard() { return board ; }
+
+    /*
+     * Generates and solves puzzles off the JavaFX application thread
+     */
+    private BoardService boardService;
     private final SpaceNode[] spaceNodes = new SpaceNode[NROWS * NCOLUMNS];
 
     /*
@@ -244,6 +249,10 @@ public class BoardNode extends Parent {
     }
 
     private void init() {
+        board.setPuzzlePool(new PuzzlePool(NUM_HINTS_HARD, NUM_HINTS_EASY,
+                PUZZLE_POOL_SIZE));
+        board.getPuzzlePool().setPreferred(difficulty);
+        boardService = new BoardService(board);
         getChildren().add(createBoardImage());
         getChildren().add(createUpperLeftLogo());
         getChildren().add(createMinimizeNode());
@@ -363,12 +372,7 @@ public class BoardNode extends Parent {
         iconAction[0] = new FunctionPtr () {
             @Override
             public void invoke() {
-                try {
-                     board.newPuzzle(difficulty);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    Platform.exit();
-                }
+                boardService.newPuzzle(difficulty);
             }
         };
         iconAction[1] = new FunctionPtr () {
@@ -388,13 +392,14 @@ public class BoardNode extends Parent {
         iconAction[3] = new FunctionPtr () {
             @Override
             public void invoke() {
+                boardService.cancel();
                 board.resetPuzzle();
             }
         };
         iconAction[4] = new FunctionPtr () {
             @Override
             public void invoke() {
-                board.solvePuzzle();
+                boardService.solvePuzzle();
             }
         };
         iconAction[5] = () -> {
@@ -491,6 +496,7 @@ public class BoardNode extends Parent {
             difficulty = (int) (NUM_HINTS_EASY -
                     (difficultyNode.getAdjValue() *
                     (NUM_HINTS_EASY - NUM_HINTS_HARD)));
+            board.getPuzzlePool().setPreferred(difficulty);
         });
      
         howToPlayNode = new HowToPlayNode(ibNodeArr[1], scaleFactor);
@@ -724,12 +730,7 @@ public class BoardNode extends Parent {
                 if (lastFocused instanceof SpaceNode) {
                     int numberKey = key.ordinal() - KeyCode.DIGIT0.ordinal();
                     Space space = ((SpaceNode)lastFocused).getSpace();
-                    space.setNumberEditable(numberKey);
-                    board.clearConflicts();
-                    ArrayList<Space> conflicts = board.getConflictsOptimized();
-                    for (Space conflict : conflicts) {
-                        conflict.setConflict();
-                    }
+                    board.placeNumber(space, numberKey);
                 }
                 break;
             case NUMPAD0:
@@ -745,12 +746,7 @@ public class BoardNode extends Parent {
                 if (lastFocused instanceof SpaceNode) {
                     int numberKey = key.ordinal() - KeyCode.NUMPAD0.ordinal();
                     Space space = ((SpaceNode)lastFocused).getSpace();
-                    space.setNumberEditable(numberKey);
-                    board.clearConflicts();
-                    ArrayList<Space> conflicts = board.getConflictsOptimized();
-                    for (Space conflict : conflicts) {
-                        conflict.setConflict();
-                    }
+                    board.placeNumber(space, numberKey);
                 }
                 break;
             case ENTER:
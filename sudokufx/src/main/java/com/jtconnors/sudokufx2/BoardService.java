@@ -0,0 +1,145 @@
+package com.jtconnors.sudokufx2;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/*
+ * Runs puzzle generation, solving and validation for a Board on a
+ * background thread, so the JavaFX application thread never waits for the
+ * SudokuGenerator.
+ *
+ * Each request computes an immutable result off the FX thread and hands it
+ * back in a single Platform.runLater() call, which applies it to all
+ * Spaces in one go.  Only the latest request counts: starting a new one
+ * cancels the one still running, and the result of a stale request is
+ * dropped instead of being applied.  Puzzle generation polls a cancel
+ * flag between its digging steps, so a stale one frees the single worker
+ * thread for the next request right away.
+ */
+public class BoardService {
+
+    private final Board board;
+    private final Executor fxExecutor;
+    private final ExecutorService worker;
+
+    /*
+     * Incremented for every request; a result is only applied if no
+     * other request has been made since it was started.
+     */
+    private final AtomicLong requestId = new AtomicLong();
+    private Future<?> pending;
+    private AtomicBoolean cancelled;
+
+    public BoardService(Board board) {
+        this(board, Platform::runLater);
+    }
+
+    /*
+     * Arguments:
+     *    fxExecutor:  Runs the code applying results to the board,
+     *                 Platform::runLater unless the board is not shown.
+     */
+    public BoardService(Board board, Executor fxExecutor) {
+        this.board = board;
+        this.fxExecutor = fxExecutor;
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "BoardService");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /*
+     * Replace the board with a new puzzle, taken from the board's
+     * PuzzlePool if it has one.
+     */
+    public Future<?> newPuzzle(int numHints) {
+        final PuzzlePool pool = board.getPuzzlePool();
+        final AtomicBoolean flag = new AtomicBoolean();
+        return submit(() -> {
+            int[] sequence = pool != null ? pool.take(numHints, flag) :
+                    PuzzlePool.generate(numHints, flag);
+            return sequence != null ? Puzzle.fromGridSequence(sequence) : null;
+        }, board::setPuzzle, flag);
+    }
+
+    /*
+     * Solve the uneditable spaces of the board and fill in the editable
+     * ones.  Must be called on the FX thread, which takes the snapshot.
+     */
+    public Future<?> solvePuzzle() {
+        final Puzzle puzzle = board.getPuzzle();
+        return submit(puzzle::solve, board::showSolution);
+    }
+
+    /*
+     * Recompute all conflicts of the board, see Board.getConflicts().
+     * Must be called on the FX thread, which takes the snapshot.
+     */
+    public Future<?> validate(boolean completeCheck) {
+        final int[] numbers = board.getNumbersRaw();
+        return submit(() -> Board.findConflicts(numbers, completeCheck),
+                board::setConflicts);
+    }
+
+    /*
+     * Cancel the running request, if any; its result will not be applied.
+     */
+    public void cancel() {
+        requestId.incrementAndGet();
+        if (cancelled != null) {
+            cancelled.set(true);
+            cancelled = null;
+        }
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private <T> Future<?> submit(Callable<T> task, Consumer<T> apply) {
+        return submit(task, apply, null);
+    }
+
+    /*
+     * Arguments:
+     *    flag:  Set by cancel() while this request is the latest one, may
+     *           be null for tasks that cannot be stopped early.
+     */
+    private <T> Future<?> submit(Callable<T> task, Consumer<T> apply,
+            AtomicBoolean flag) {
+        cancel();
+        cancelled = flag;
+        final long id = requestId.get();
+        pending = worker.submit(() -> {
+            try {
+                final T result = task.call();
+                if (result != null && requestId.get() == id) {
+                    fxExecutor.execute(() -> {
+                        if (requestId.get() == id) {
+                            apply.accept(result);
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                if (requestId.get() == id) {
+                    e.printStackTrace();
+                    fxExecutor.execute(Platform::exit);
+                }
+            }
+        });
+        return pending;
+    }
+}
@@ -1,7 +1,6 @@
 
 package com.jtconnors.sudokufx2;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import javafx.event.EventHandler;
 import javafx.scene.Node;
@@ -288,14 +287,9 @@ public class ChooseNumberNode extends Parent {
 
     private void doSelected(ParentWithKeyTraversal numberNode) {
         if (spaceNode != null) {
-            spaceNode.getSpace().setNumberEditable(
-                ((NumberNode) numberNode).getValue());
             Board board = SpaceNode.getBoardNode().getBoard();
-            board.clearConflicts();
-            ArrayList<Space> conflicts = board.getConflictsOptimized();
-            for (Space conflict : conflicts) {
-                conflict.setConflict();
-            }
+            board.placeNumber(spaceNode.getSpace(),
+                ((NumberNode) numberNode).getValue());
         }
         setVisible(false);
     }
@@ -10,6 +10,10 @@ public class Globals {
     public static final double ICON_SIZE = 50f;
     public static final int NUM_HINTS_EASY = 34;
     public static final int NUM_HINTS_HARD = 26;
+    /*
+     * Number of ready made puzzles kept for every difficulty level
+     */
+    public static final int PUZZLE_POOL_SIZE = 4;
 
     public static final String IMAGE_FILES_PREFIX =
             //"file:src/main/java/sudokufx2/images/";
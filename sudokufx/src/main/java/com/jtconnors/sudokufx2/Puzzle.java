@@ -0,0 +1,83 @@
+package com.jtconnors.sudokufx2;
+
+import net.sourceforge.playsudoku.*;
+import static com.jtconnors.sudokufx2.Globals.NROWS;
+import static com.jtconnors.sudokufx2.Globals.NCOLUMNS;
+
+/*
+ * Immutable snapshot of a puzzle: the uneditable numbers (hints) and the
+ * solution of every space, indexed by Board.getIndex(row, column).  Being
+ * immutable, a Puzzle can be built on a background thread and handed over
+ * to the JavaFX application thread without any further synchronization.
+ */
+public final class Puzzle {
+
+    private final int[] givens;
+    private final int[] solution;
+
+    /*
+     * Arguments:
+     *    givens:    hint for every space, 0 for an editable space
+     *    solution:  solved number for every space, 0 if not known
+     */
+    public Puzzle(int[] givens, int[] solution) {
+        if (givens.length != NROWS * NCOLUMNS ||
+            solution.length != NROWS * NCOLUMNS) {
+            throw new IllegalArgumentException("Puzzle size incompatible");
+        }
+        this.givens = givens.clone();
+        this.solution = solution.clone();
+    }
+
+    /*
+     * Convert the Integer sequence returned by the
+     * sudokuGrid.returnGridSequence() glue.
+     */
+    public static Puzzle fromGridSequence(int[] sequence) throws Exception {
+        if (sequence.length != NROWS * NCOLUMNS) {
+            throw new Exception("SudokuGenerator puzzle incompatible");
+        }
+        int[] givens = new int[sequence.length];
+        int[] solution = new int[sequence.length];
+        for (int i=0; i<sequence.length; i++) {
+            if ((i / NCOLUMNS != SudokuGrid.getX(sequence[i])) ||
+                (i % NCOLUMNS != SudokuGrid.getY(sequence[i]))) {
+                throw new Exception(
+                    "Bad data returned by SudokuGenerator, index=" + i);
+            }
+            solution[i] = SudokuGrid.getGridVal(sequence[i]);
+            if (SudokuGrid.isDefault(sequence[i])) {
+                givens[i] = solution[i];
+            }
+        }
+        return new Puzzle(givens, solution);
+    }
+
+    public int getGiven(int index) {
+        return givens[index];
+    }
+
+    public boolean isGiven(int index) {
+        return givens[index] != 0;
+    }
+
+    public int getSolution(int index) {
+        return solution[index];
+    }
+
+    /*
+     * Solve the hints from scratch.
+     *
+     * Return value:
+     *     A Puzzle with the same hints and the solution found, or null if
+     *     the hints have no solution.
+     */
+    public Puzzle solve() {
+        BitboardSolver solver = new BitboardSolver();
+        int[] result = new int[givens.length];
+        if (!solver.load(givens) || !solver.solve(result)) {
+            return null;
+        }
+        return new Puzzle(givens, result);
+    }
+}
@@ -0,0 +1,200 @@
+package com.jtconnors.sudokufx2;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.sourceforge.playsudoku.*;
+
+/*
+ * A bounded stock of ready made puzzles for every difficulty level (number
+ * of hints), filled by daemon worker threads so that starting a new game
+ * never has to wait for the SudokuGenerator.
+ *
+ * Puzzles are kept in the sudokuGrid.returnGridSequence() format.  The
+ * workers always top up the preferred level first, then the levels next
+ * to it, and sleep once every level is full.
+ */
+public class PuzzlePool {
+
+    private final int minHints;
+    private final ArrayList<ArrayBlockingQueue<int[]>> levels;
+    private final Thread[] workers;
+
+    /*
+     * Guarded by this
+     */
+    private int preferred;
+    private boolean shutdown;
+
+    public PuzzlePool(int minHints, int maxHints, int capacity) {
+        this(minHints, maxHints, capacity, 1);
+    }
+
+    public PuzzlePool(int minHints, int maxHints, int capacity, int nWorkers) {
+        this(minHints, maxHints, capacity, nWorkers, new SudokuGenerator());
+    }
+
+    /*
+     * Arguments:
+     *    seed:  Seed of the generators, each worker generating its own
+     *           reproducible stream of puzzles.  Which worker fills which
+     *           level still depends on timing.
+     */
+    public PuzzlePool(int minHints, int maxHints, int capacity, int nWorkers,
+            long seed) {
+        this(minHints, maxHints, capacity, nWorkers, new SudokuGenerator(seed));
+    }
+
+    private PuzzlePool(int minHints, int maxHints, int capacity, int nWorkers,
+            SudokuGenerator seeds) {
+        if (minHints > maxHints || capacity < 1 || nWorkers < 1) {
+            throw new IllegalArgumentException("Illegal puzzle pool size");
+        }
+        this.minHints = minHints;
+        levels = new ArrayList<>(maxHints - minHints + 1);
+        for (int i=minHints; i<=maxHints; i++) {
+            levels.add(new ArrayBlockingQueue<>(capacity));
+        }
+        workers = new Thread[nWorkers];
+        for (int i=0; i<nWorkers; i++) {
+            /*
+             * Every worker gets a generator with a random stream split off
+             * the seeds, so workers share no random state.
+             */
+            final SudokuGenerator generator = seeds.split();
+            workers[i] = new Thread(() -> fill(generator), "PuzzlePool-" + i);
+            workers[i].setDaemon(true);
+            workers[i].setPriority(Thread.MIN_PRIORITY);
+            workers[i].start();
+        }
+    }
+
+    private int getLevel(int numHints) {
+        return Math.max(0, Math.min(levels.size() - 1, numHints - minHints));
+    }
+
+    /*
+     * Create a single puzzle on the calling thread.
+     */
+    public static int[] generate(int numHints) {
+        return generate(numHints, null);
+    }
+
+    /*
+     * Arguments:
+     *    cancelled:  Stops the generation between digging steps once set,
+     *                may be null.
+     *
+     * Return value:
+     *     The puzzle, or null if the generation was cancelled.
+     */
+    public static int[] generate(int numHints, AtomicBoolean cancelled) {
+        SudokuGenerator sudokuGenerator = new SudokuGenerator();
+        sudokuGenerator.setCancelFlag(cancelled);
+        int[] puzzle = generate(sudokuGenerator, numHints);
+        return sudokuGenerator.isCancelled() ? null : puzzle;
+    }
+
+    /*
+     * The puzzle has a unique solution; a grid that cannot be dug down to
+     * numHints keeps a few hints more.
+     */
+    private static int[] generate(SudokuGenerator sudokuGenerator,
+            int numHints) {
+        sudokuGenerator.generateUniquePuzzle(numHints,
+                GV.NumDistributuon.evenlyFilled3x3Square3 );
+        return sudokuGenerator.getGrid().returnGridSequence();
+    }
+
+    /*
+     * Take a ready made puzzle without blocking.
+     *
+     * Return value:
+     *     The puzzle, or null if none is left for this difficulty level.
+     */
+    public int[] poll(int numHints) {
+        int[] puzzle = levels.get(getLevel(numHints)).poll();
+        synchronized (this) {
+            notifyAll();
+        }
+        return puzzle;
+    }
+
+    /*
+     * Take a ready made puzzle, or generate one on the calling thread if
+     * the pool has run dry.
+     */
+    public int[] take(int numHints) {
+        return take(numHints, null);
+    }
+
+    /*
+     * As take(numHints), a generation on the calling thread stopping
+     * early and returning null once cancelled is set.
+     */
+    public int[] take(int numHints, AtomicBoolean cancelled) {
+        int[] puzzle = poll(numHints);
+        return puzzle != null ? puzzle : generate(numHints, cancelled);
+    }
+
+    /*
+     * Called whenever the skill level changes, so the workers refill that
+     * level before all others.
+     */
+    public synchronized void setPreferred(int numHints) {
+        preferred = getLevel(numHints);
+        notifyAll();
+    }
+
+    public int size(int numHints) {
+        return levels.get(getLevel(numHints)).size();
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    /*
+     * Return the level to fill next: the preferred one, then its
+     * neighbours in order of distance, or -1 if all levels are full.
+     */
+    private int nextLevel() {
+        for (int d=0; d<levels.size(); d++) {
+            int below = preferred - d;
+            int above = preferred + d;
+            if (below >= 0 && levels.get(below).remainingCapacity() > 0) {
+                return below;
+            }
+            if (above < levels.size() && levels.get(above).remainingCapacity() > 0) {
+                return above;
+            }
+        }
+        return -1;
+    }
+
+    private void fill(SudokuGenerator generator) {
+        while (true) {
+            int level;
+            synchronized (this) {
+                level = nextLevel();
+                while (!shutdown && level < 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    level = nextLevel();
+                }
+                if (shutdown) {
+                    return;
+                }
+            }
+            /*
+             * A puzzle generated concurrently by another worker may have
+             * filled the level meanwhile; offer() simply drops this one then.
+             */
+            levels.get(level).offer(generate(generator, minHints + level));
+        }
+    }
+}
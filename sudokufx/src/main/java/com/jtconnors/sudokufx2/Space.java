@@ -2,7 +2,7 @@
 package com.jtconnors.sudokufx2;
 
 import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.IntegerPropertyBase;
+import static com.jtconnors.sudokufx2.Globals.NCOLUMNS;
 
 public class Space {
     /* A real Sudoku board space can either be blank or have a value between
@@ -24,61 +24,43 @@ public class Space {
      */
 
     /*
-     * Create a Beans IntegerProperty for the number variable so that
-     * listeners can be appraised of any updates.
+     * A Space is a light view of one space of a Board, which keeps the
+     * state of all spaces in flat arrays.  The IntegerProperty for the
+     * number is created by the Board when numberProperty() is first
+     * called, so listeners can be appraised of any updates.
      */
-    private IntegerProperty number;
+    private final Board board;
+    private final int index;
 
     public final void setNumber(int value) {
-        numberProperty().setValue(value);
+        board.setNumberRaw(index, value);
     }
 
     public final int getNumber() {
-        return number == null ? 0 : number.getValue();
+        return board.getNumberRaw(index);
     }
 
     public IntegerProperty numberProperty() {
-        if (number == null) {
-            number = new IntegerPropertyBase() {
-                
-                @Override
-                public Object getBean() {
-                    return Space.this;
-                }
-                
-                @Override
-                public String getName() {
-                    return "number";
-                }    
-            };
-        }
-        return number;
+        return board.numberProperty(index);
     }
 
-    /*
-     * As part of the provided SudokuGenerator code, a newly generated puzzle
-     * contains not only a new puzzle but the solution too.  Keep the solved
-     * number for this space in the 'solvedNumber' instance variable.
-     */
-    private int solvedNumber;
-
     /*
      * Each space on the board has a (row, column) coordinate and uniquely
      * belongs to 1 of 9 vertical lines, 1 of 9 horizontal lines,
-     * and 1 of 9 reigons.  The vertical and horizontal
-     * lines can be determined by looking at the assigned row and column
-     * attributes.  The reigon number for each space will be calclauted and
-     * stored in the reigon attribute.
+     * and 1 of 9 reigons.  All three are derived from the index of the
+     * space on the board.
      */
-    private final int row;
-    private final int column;
-    private final int region;
-
-    public Space (int row, int column, int region) {
-        this.row = row;
-        this.column = column;
-        this.region = region;
-        setNumber(0);
+    Space(Board board, int index) {
+        this.board = board;
+        this.index = index;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getIndex() {
+        return index;
     }
 
     /*
@@ -89,11 +71,11 @@ public class Space {
     }
 
     /*
-     * Get the external value of the number variable, achieved by
-     * performing a 'mod 10' on 'number'.
+     * Get the external value of the number variable, the number without
+     * the +10 and +20 flags.
      */
     public int getNumberExternal() {
-        return getNumber() % 10;
+        return board.getNumberExternal(index);
     }
     
     public void setNumberEditable(int number) {
@@ -130,37 +112,40 @@ public class Space {
     }
 
     public boolean isEditable() {
-        int num = getNumber();
-        return (num < 10) || (num >= 21 && num <= 29);
+        return board.isEditable(index);
     }
 
     public boolean isConflict() {
-        int num = getNumber();
-        return (num >= 21) && (num <= 39);
+        return board.isConflict(index);
     }
 
+    /*
+     * As part of the provided SudokuGenerator code, a newly generated puzzle
+     * contains not only a new puzzle but the solution too.  The board keeps
+     * the solved number of every space.
+     */
     public int getSolvedNumber() {
-        return this.solvedNumber;
+        return board.getSolvedNumber(index);
     }
 
     public void setSolvedNumber(int solvedNumber) {
-        this.solvedNumber = solvedNumber;
+        board.setSolvedNumber(index, solvedNumber);
     }
 
     public void clear() {
         setNumber(0);
-        this.solvedNumber = 0;
+        setSolvedNumber(0);
     }
 
     public int getRow() {
-        return this.row;
+        return index / NCOLUMNS;
     }
 
     public int getColumn() {
-        return this.column;
+        return index % NCOLUMNS;
     }
 
     public int getRegion() {
-        return this.region;
+        return Board.getRegion(getRow(), getColumn());
     }
 }